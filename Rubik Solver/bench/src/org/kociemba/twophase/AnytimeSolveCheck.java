@@ -0,0 +1,109 @@
+package org.kociemba.twophase;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Checks the solutions that {@link AnytimeSolver} streams for a seeded corpus of random cubes: every solution passed to
+ * {@link AnytimeSolver.Listener#onSolution(Solution)} is applied to the {@link CubieCube} of its cube, which must then
+ * be the solved cube, and must be strictly shorter than the solution before; the returned solution must be the last
+ * one. Every cube is solved twice: once until a deadline, and once with a far deadline and a cancellation token that
+ * another thread sets after the same time. Both solves must stop within 100 ms of the deadline or the token, and the
+ * token must not interrupt the solving thread. Prints every failure and exits with status 1 if there is one.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [maxDepth] [millis]
+ */
+public class AnytimeSolveCheck {
+
+	private static final long SLACK_MILLIS = 100; // time a solve may take to notice its deadline or token
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+		long millis = args.length > 3 ? Long.parseLong(args[3]) : 500;
+
+		Bench.loadTables();
+		CubeCorpus corpus = CubeCorpus.random(seed);
+		System.out.printf("AnytimeSolve: cubes=%d seed=%d maxDepth=%d millis=%d%n", cubes, seed, maxDepth, millis);
+
+		AnytimeSolver solver = new AnytimeSolver();
+		ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+		int failed = 0;
+		long solutions = 0, first = 0, last = 0, lateMax = 0;
+		try {
+			for (int i = 0; i < cubes; i++) {
+				String facelets = corpus.get(i);
+				for (int token = 0; token < 2; token++) {
+					final AtomicBoolean cancelled = token == 1 ? new AtomicBoolean() : null;
+					Replay replay = new Replay(facelets);
+					long tStart = System.nanoTime();
+					long stop = tStart + TimeUnit.MILLISECONDS.toNanos(millis);
+					if (cancelled != null)
+						timer.schedule(new Runnable() {
+							@Override
+							public void run() {
+								cancelled.set(true);
+							}
+						}, millis, TimeUnit.MILLISECONDS);
+					long deadline = cancelled == null ? stop : tStart + TimeUnit.SECONDS.toNanos(60);
+					Solution solution = solver.solve(facelets, maxDepth, deadline, cancelled, replay);
+					long late = System.nanoTime() - stop;
+					lateMax = Math.max(lateMax, late);
+
+					String error = replay.error;
+					if (error == null && replay.solutions == 0)
+						error = "no solution";
+					else if (error == null && (!solution.isSolved() || solution.length() != replay.length))
+						error = "returned " + solution + " after a solution of length " + replay.length;
+					else if (error == null && late > TimeUnit.MILLISECONDS.toNanos(SLACK_MILLIS))
+						error = "stopped " + late / 1000000 + " ms late";
+					else if (error == null && Thread.interrupted())
+						error = "the token interrupted the solving thread";
+					if (error != null) {
+						System.out.printf("cube %d %s%s: %s%n", i, facelets, cancelled != null ? " with token" : "", error);
+						failed++;
+					}
+					solutions += replay.solutions;
+					first += replay.first;
+					last += replay.length;
+				}
+			}
+		} finally {
+			timer.shutdownNow();
+		}
+		System.out.printf("%d solves, %.1f solutions per solve, length first %5.2f last %5.2f, max late %d ms, failed %d%n",
+				2 * cubes, (double) solutions / (2 * cubes), (double) first / (2 * cubes), (double) last / (2 * cubes),
+				lateMax / 1000000, failed);
+		if (failed > 0)
+			System.exit(1);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Applies every streamed solution to the cube and checks that the lengths strictly decrease.
+	private static class Replay implements AnytimeSolver.Listener {
+		private final String facelets;
+		int solutions;
+		int first;
+		int length = Integer.MAX_VALUE; // of the last solution
+		String error; // the first failure
+
+		Replay(String facelets) {
+			this.facelets = facelets;
+		}
+
+		@Override
+		public void onSolution(Solution solution) {
+			if (error == null && !Bench.solves(facelets, solution))
+				error = "not solved by " + solution;
+			else if (error == null && solution.length() >= length)
+				error = "length " + solution.length() + " after " + length;
+			if (solutions++ == 0)
+				first = solution.length();
+			length = solution.length();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package org.kociemba.twophase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the throughput of {@link BatchSolver} on a seeded {@link CubeCorpus} of random cubes with 1 to threads
+ * workers: solves per second and the speedup over one worker.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [maxDepth] [threads], by default one
+ * thread per available processor.
+ */
+public class BatchBenchmark {
+
+	private static final int TIME_OUT = 60; // seconds per cube
+
+	public static void main(String[] args) throws InterruptedException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+		int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		Bench.loadTables();
+		CubeCorpus corpus = CubeCorpus.random(seed);
+		List<String> batch = new ArrayList<String>(cubes);
+		for (int i = 0; i < cubes; i++)
+			batch.add(corpus.get(i));
+		System.out.printf("Batch: cubes=%d seed=%d maxDepth=%d cores=%d%n", cubes, seed, maxDepth,
+				Runtime.getRuntime().availableProcessors());
+
+		double single = 0;
+		for (int threads = 1; threads <= maxThreads; threads++) {
+			BatchSolver solver = new BatchSolver(threads);
+			try {
+				solver.solve(batch, maxDepth, TIME_OUT); // warm up the JIT and the workers
+				int failed = 0;
+				for (Solution solution : solver.solve(batch, maxDepth, TIME_OUT))
+					if (!solution.isSolved())
+						failed++;
+				double rate = solver.getSolvesPerSecond();
+				if (threads == 1)
+					single = rate;
+				System.out.printf("threads %2d  %8.1f solves/s  speedup %5.2f  failed %d%n", threads, rate, rate / single,
+						failed);
+			} finally {
+				solver.shutdown();
+			}
+		}
+	}
+}
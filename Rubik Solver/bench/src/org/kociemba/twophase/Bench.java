@@ -0,0 +1,135 @@
+package org.kociemba.twophase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Minimal measurement harness shared by the solver benchmarks.
+ * <p>
+ * Every benchmark warms up before it measures, repeats timed iterations until a minimum time has elapsed and feeds all
+ * computed values into {@link #sink}, so the JIT cannot remove the measured work.
+ */
+final class Bench {
+
+	static volatile long sink; // receives the results of the measured operations
+
+	private Bench() {
+	}
+
+	/**
+	 * An operation whose throughput is measured.
+	 */
+	interface Op {
+		/**
+		 * @param i the number of the invocation, used to select the input
+		 * @return any value that depends on the work done
+		 */
+		long run(int i);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Generate all tables in loading order on the calling thread.
+	static PruneTableLoader loadTables() {
+		PruneTableLoader loader = new PruneTableLoader();
+		while (!loader.loadingFinished())
+			loader.loadNext();
+		return loader;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Forget all tables, so that the next loader generates them again.
+	static void clearTables() {
+		CoordCube.Slice_URFtoDLF_Parity_Fill = -1;
+		CoordCube.Slice_URtoDF_Parity_Fill = -1;
+		CoordCube.Slice_Twist_Fill = -1;
+		CoordCube.Slice_Flip_Fill = -1;
+		CoordCube.twistMove = null;
+		CoordCube.flipMove = null;
+		CoordCube.FRtoBR_Move = null;
+		CoordCube.URFtoDLF_Move = null;
+		CoordCube.URtoDF_Move = null;
+		CoordCube.URtoUL_Move = null;
+		CoordCube.UBtoDF_Move = null;
+		CoordCube.MergeURtoULandUBtoDF = null;
+		CoordCube.Slice_URFtoDLF_Parity_Prun = null;
+		CoordCube.Slice_URtoDF_Parity_Prun = null;
+		CoordCube.Slice_URFtoDLF_Parity_Prun3 = null;
+		CoordCube.Slice_URtoDF_Parity_Prun3 = null;
+		CoordCube.Slice_Twist_Prun = null;
+		CoordCube.Slice_Flip_Prun = null;
+	}
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The same seed always gives the same corpus, so results of different releases can be compared.
+	static String[] corpus(int cubes, long seed) {
+		String[] corpus = new String[cubes];
+		Random gen = new Random(seed);
+		for (int i = 0; i < cubes; i++)
+			corpus[i] = Tools.randomCube(gen);
+		return corpus;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Measure the throughput of op and print it. Runs op for warmupNanos first, then in batches of batch invocations
+	// until measureNanos have elapsed. Returns the average time per invocation in nanoseconds.
+	static double throughput(String name, Op op, int batch, long warmupNanos, long measureNanos) {
+		long acc = 0;
+		long tEnd = System.nanoTime() + warmupNanos;
+		while (System.nanoTime() < tEnd)
+			for (int i = 0; i < batch; i++)
+				acc += op.run(i);
+
+		long ops = 0;
+		long tStart = System.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < batch; i++)
+				acc += op.run(i);
+			ops += batch;
+			elapsed = System.nanoTime() - tStart;
+		} while (elapsed < measureNanos);
+		sink += acc;
+
+		double nsPerOp = (double) elapsed / ops;
+		System.out.printf("%-28s %12.0f ops/s %10.1f ns/op%n", name, 1e9 / nsPerOp, nsPerOp);
+		return nsPerOp;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The value below which the given fraction of the samples lies (nearest rank). The samples must be sorted.
+	static long percentile(long[] sorted, double fraction) {
+		int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Format the distribution of the given times as milliseconds.
+	static String latencies(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		long sum = 0;
+		for (long t : sorted)
+			sum += t;
+		return String.format("mean %8.2f  p50 %8.2f  p90 %8.2f  p99 %8.2f  max %8.2f ms", sum / 1e6 / sorted.length,
+				percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6, percentile(sorted, 0.99) / 1e6,
+				sorted[sorted.length - 1] / 1e6);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Apply the moves of solution to the cube and check that it is solved.
+	static boolean solves(String facelets, Solution solution) {
+		CubieCube cc = new FaceCube(facelets).toCubieCube();
+		for (int i = 0; i < solution.length(); i++)
+			for (int p = 0; p < solution.getPower(i); p++) {
+				cc.cornerMultiply(CubieCube.moveCube[solution.getAxis(i)]);
+				cc.edgeMultiply(CubieCube.moveCube[solution.getAxis(i)]);
+			}
+		for (int i = 0; i < 8; i++)
+			if (cc.cp[i] != i || cc.co[i] != 0)
+				return false;
+		for (int i = 0; i < 12; i++)
+			if (cc.ep[i] != i || cc.eo[i] != 0)
+				return false;
+		return true;
+	}
+}
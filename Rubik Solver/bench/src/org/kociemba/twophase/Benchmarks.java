@@ -0,0 +1,39 @@
+package org.kociemba.twophase;
+
+import java.io.IOException;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Runs all solver benchmarks with their default arguments, so the output of two releases can be compared line by line.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt.
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String[] none = {};
+		TableBenchmark.main(none);
+		System.out.println();
+		TableAssetBenchmark.main(none);
+		System.out.println();
+		PartialTablesBenchmark.main(none);
+		System.out.println();
+		ConversionBenchmark.main(none);
+		System.out.println();
+		CorpusBenchmark.main(none);
+		System.out.println();
+		SearchBenchmark.main(none);
+		System.out.println();
+		Phase1PruningBenchmark.main(none);
+		System.out.println();
+		Phase2EncodingBenchmark.main(none);
+		System.out.println();
+		RaceBenchmark.main(none);
+		System.out.println();
+		BatchBenchmark.main(none);
+		System.out.println();
+		DaemonBenchmark.main(none);
+		System.out.println();
+		OptimalBenchmark.main(none);
+	}
+}
@@ -0,0 +1,37 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Build step for the compressed table asset of the app: generates all tables on the desktop JVM, writes them with
+ * {@link PruneTableLoader#saveCompressed(File)} and reads the asset back to verify it.
+ * <p>
+ * The asset has to be built again whenever {@link TableFile#VERSION} changes; the app ignores a stale asset and
+ * generates the tables itself. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [asset file] [NIBBLE|MOD3]
+ */
+public class BuildTableAsset {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		File file = new File(args.length > 0 ? args[0] : "assets/cube.tblz");
+		PruneTableLoader.Phase2Encoding encoding = args.length > 1 ? PruneTableLoader.Phase2Encoding.valueOf(args[1])
+				: PruneTableLoader.Phase2Encoding.NIBBLE;
+
+		PruneTableLoader loader = new PruneTableLoader(encoding);
+		loader.loadAll(Runtime.getRuntime().availableProcessors(), null);
+		loader.saveCompressed(file);
+
+		Bench.clearTables();
+		FileInputStream in = new FileInputStream(file);
+		try {
+			if (!new PruneTableLoader(encoding).loadFromChannel(in.getChannel()))
+				throw new IllegalStateException("Cannot read back " + file);
+		} finally {
+			in.close();
+		}
+		System.out.printf("%s: %d bytes, %s encoding, table format version %d%n", file, file.length(), encoding,
+				TableFile.VERSION);
+	}
+}
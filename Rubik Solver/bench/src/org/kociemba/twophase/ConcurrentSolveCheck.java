@@ -0,0 +1,73 @@
+package org.kociemba.twophase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Checks that concurrent solves do not disturb each other: solves a seeded corpus of random cubes on one shared pool,
+ * with one {@link Search} context per worker thread, and applies every solution to the {@link CubieCube} of its cube,
+ * which must then be the solved cube. Prints every cube that is not solved and exits with status 1 if there is one.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [threads] [maxDepth]
+ */
+public class ConcurrentSolveCheck {
+
+	private static final int TIME_OUT = 60; // seconds per cube
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		final int maxDepth = args.length > 3 ? Integer.parseInt(args[3]) : 23;
+
+		Bench.loadTables();
+		CubeCorpus corpus = CubeCorpus.random(seed);
+		System.out.printf("ConcurrentSolve: cubes=%d seed=%d threads=%d maxDepth=%d%n", cubes, seed, threads, maxDepth);
+
+		final ThreadLocal<Search> search = new ThreadLocal<Search>() {
+			@Override
+			protected Search initialValue() {
+				return new Search();
+			}
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		String[] facelets = new String[cubes];
+		List<Future<Solution>> solves = new ArrayList<Future<Solution>>(cubes);
+		long tStart = System.nanoTime();
+		try {
+			for (int i = 0; i < cubes; i++) {
+				final String cube = facelets[i] = corpus.get(i);
+				solves.add(pool.submit(new Callable<Solution>() {
+					@Override
+					public Solution call() {
+						return search.get().solve(cube, maxDepth, TIME_OUT);
+					}
+				}));
+			}
+
+			int failed = 0;
+			long moves = 0;
+			for (int i = 0; i < cubes; i++) {
+				Solution solution = solves.get(i).get();
+				if (solution.isSolved() && Bench.solves(facelets[i], solution))
+					moves += solution.length();
+				else {
+					System.out.printf("cube %d %s not solved by %s%n", i, facelets[i], solution);
+					failed++;
+				}
+			}
+			System.out.printf("%d cubes in %.1f s, length %5.2f, failed %d%n", cubes, (System.nanoTime() - tStart) / 1e9,
+					(double) moves / (cubes - failed), failed);
+			if (failed > 0)
+				System.exit(1);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
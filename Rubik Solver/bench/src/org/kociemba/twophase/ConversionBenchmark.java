@@ -0,0 +1,90 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the throughput of {@link Tools#verify(CharSequence)} and of {@link FaceletParser} on strings and on the
+ * bytes of a corpus file, and the cost of every step of the conversion from the facelet string over {@link FaceCube}
+ * and {@link CubieCube} to {@link CoordCube}, the way {@link Search} did it before every solve.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [milliseconds per benchmark]
+ */
+public class ConversionBenchmark {
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		long measureNanos = (args.length > 2 ? Long.parseLong(args[2]) : 2000) * 1000000L;
+		long warmupNanos = measureNanos / 2;
+
+		final String[] corpus = Bench.corpus(cubes, seed);
+		final FaceCube[] faceCubes = new FaceCube[cubes];
+		final CubieCube[] cubieCubes = new CubieCube[cubes];
+		final byte[] file = new byte[55 * cubes]; // like a corpus file in the FACELETS format
+		for (int i = 0; i < cubes; i++) {
+			faceCubes[i] = new FaceCube(corpus[i]);
+			cubieCubes[i] = faceCubes[i].toCubieCube();
+			for (int n = 0; n < 54; n++)
+				file[55 * i + n] = (byte) corpus[i].charAt(n);
+			file[55 * i + 54] = '\n';
+		}
+		final FaceletParser parser = new FaceletParser();
+		System.out.printf("Conversion: cubes=%d seed=%d%n", cubes, seed);
+
+		Bench.throughput("Tools.verify", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return Tools.verify(corpus[i]);
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("FaceCube -> CubieCube.verify", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return new FaceCube(corpus[i]).toCubieCube().verify();
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("FaceletParser bytes (bulk)", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return parser.verify(file, 55 * i);
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("String -> FaceCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return new FaceCube(corpus[i]).f[4].ordinal();
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("FaceCube -> CubieCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return faceCubes[i].toCubieCube().co[0];
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("CubieCube -> CoordCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return new CoordCube(cubieCubes[i]).URtoDF;
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("String -> CoordCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return new CoordCube(new FaceCube(corpus[i]).toCubieCube()).URtoDF;
+			}
+		}, cubes, warmupNanos, measureNanos);
+
+		Bench.throughput("String -> parser -> CoordCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				parser.verify(corpus[i]);
+				return new CoordCube(parser.cc).URtoDF;
+			}
+		}, cubes, warmupNanos, measureNanos);
+	}
+}
@@ -0,0 +1,55 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the generation of random cubes: {@link Tools#randomCube(Random)}, {@link CubeCorpus#get(long)} and
+ * {@link CubeCorpus#write(File, CubeCorpus.Format, long, int)} of both formats on one thread and on all cores.
+ * <p>
+ * The files are written to a temporary file, which is deleted afterwards. Runs headless on a plain JVM, see
+ * docs/Build.txt. Arguments: [cubes] [seed]
+ */
+public class CorpusBenchmark {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		final int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		System.out.printf("Corpus: cubes=%d seed=%d threads=%d%n", cubes, seed, threads);
+		final Random gen = new Random(seed);
+		Bench.throughput("Tools.randomCube", new Bench.Op() {
+			@Override
+			public long run(int i) {
+				return Tools.randomCube(gen).hashCode();
+			}
+		}, 1000, 1000000000L, 2000000000L);
+		final CubeCorpus corpus = CubeCorpus.random(seed);
+		Bench.throughput("CubeCorpus.get", new Bench.Op() {
+			long index;
+
+			@Override
+			public long run(int i) {
+				return corpus.get(index++).hashCode();
+			}
+		}, 1000, 1000000000L, 2000000000L);
+
+		File file = File.createTempFile("corpus", ".tmp");
+		try {
+			corpus.write(file, CubeCorpus.Format.BINARY, cubes / 10, threads); // warm up the JIT
+			for (CubeCorpus.Format format : CubeCorpus.Format.values())
+				for (int t : new int[] { 1, threads }) {
+					long tStart = System.nanoTime();
+					corpus.write(file, format, cubes, t);
+					long nanos = System.nanoTime() - tStart;
+					System.out.printf("write %-8s %2d threads %12.0f cubes/s %10d bytes%n", format, t, cubes * 1e9 / nanos,
+							file.length());
+				}
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.kociemba.twophase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures what a {@link SolverClient} pays for solving through a {@link SolverServer} in the same JVM: the round
+ * trip of every solve minus the solve time the server reports, one request at a time, and the throughput with
+ * {@link SolverServer#MAX_IN_FLIGHT} pipelined requests on one connection.
+ * <p>
+ * The overhead covers encoding, the loopback socket in both directions, the hand over to a worker, the facelet check
+ * and decoding. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [maxDepth]
+ */
+public class DaemonBenchmark {
+
+	private static final long TIME_OUT = 60000; // milliseconds per cube
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		Bench.loadTables();
+		String[] corpus = Bench.corpus(cubes, seed);
+		SolverServer server = new SolverServer(0, threads, 1024);
+		SolverClient client = new SolverClient(server.getPort());
+		try {
+			System.out.printf("Daemon: cubes=%d seed=%d maxDepth=%d threads=%d%n", cubes, seed, maxDepth, threads);
+			long[] roundTrip = new long[cubes], overhead = new long[cubes];
+			for (int run = 0; run < 2; run++) // the first run only warms up the JIT
+				for (int i = 0; i < cubes; i++) {
+					long tStart = System.nanoTime();
+					Solution s = client.solve(corpus[i], maxDepth, TIME_OUT);
+					roundTrip[i] = System.nanoTime() - tStart;
+					overhead[i] = roundTrip[i] - s.getNanos();
+					if (!s.isSolved())
+						throw new IllegalStateException(s + " for " + corpus[i]);
+				}
+			System.out.printf("round trip  %s%n", Bench.latencies(roundTrip));
+			Arrays.sort(overhead);
+			System.out.printf("overhead    p50 %8.1f  p90 %8.1f  p99 %8.1f us%n", Bench.percentile(overhead, 0.5) / 1e3,
+					Bench.percentile(overhead, 0.9) / 1e3, Bench.percentile(overhead, 0.99) / 1e3);
+
+			long tStart = System.nanoTime();
+			int submitted = 0;
+			for (int received = 0; received < cubes; received++) {
+				while (submitted < cubes && submitted - received < SolverServer.MAX_IN_FLIGHT)
+					client.submit(corpus[submitted++], maxDepth, TIME_OUT);
+				if (!client.receive().getSolution().isSolved())
+					throw new IllegalStateException("Pipelined solve failed");
+			}
+			long t = System.nanoTime() - tStart;
+			System.out.printf("pipelined   %8.1f solves/s with %d requests in flight%n", cubes * 1e9 / t,
+					SolverServer.MAX_IN_FLIGHT);
+			System.out.print(client.metrics());
+		} finally {
+			client.close();
+			server.shutdown();
+		}
+	}
+}
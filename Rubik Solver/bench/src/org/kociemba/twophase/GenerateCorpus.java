@@ -0,0 +1,39 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.IOException;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Writes a {@link CubeCorpus} to a file on all cores. The kind is "random", "scramble" or "distance"; the length is the
+ * number of moves of a scramble or the distance to the solved cube. A distance corpus first generates the tables of
+ * {@link OptimalSearch}. Runs headless on a plain JVM, see docs/Build.txt. Arguments: file [cubes] [seed] [kind]
+ * [length] [FACELETS|BINARY]
+ */
+public class GenerateCorpus {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		File file = new File(args[0]);
+		long cubes = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		String kind = args.length > 3 ? args[3] : "random";
+		int length = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+		CubeCorpus.Format format = args.length > 5 ? CubeCorpus.Format.valueOf(args[5]) : CubeCorpus.Format.FACELETS;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		CubeCorpus corpus;
+		if (kind.equals("random"))
+			corpus = CubeCorpus.random(seed);
+		else if (kind.equals("scramble"))
+			corpus = CubeCorpus.scrambles(seed, length);
+		else if (kind.equals("distance")) {
+			Bench.loadTables().loadPatternDatabases(threads);
+			corpus = CubeCorpus.distance(seed, length);
+		} else
+			throw new IllegalArgumentException("Unknown kind: " + kind);
+
+		long tStart = System.nanoTime();
+		corpus.write(file, format, cubes, threads);
+		System.out.printf("%s: %d cubes in %.1f ms%n", file, cubes, (System.nanoTime() - tStart) / 1e6);
+	}
+}
@@ -0,0 +1,78 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures {@link OptimalSearch} on cubes scrambled with a fixed number of random moves, so that the optimal solutions
+ * stay short enough to be found in reasonable time. Also prints the lengths {@link Search} finds for the same cubes.
+ * <p>
+ * The pattern databases are read from the given file, or generated and written to it if it does not exist yet. Runs
+ * headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [scramble length] [seed] [timeOut] [pattern database
+ * file]
+ */
+public class OptimalBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int length = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		int timeOut = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+		File file = args.length > 4 ? new File(args[4]) : null;
+
+		PruneTableLoader loader = Bench.loadTables();
+		long tStart = System.nanoTime();
+		if (file == null || !loader.loadPatternDatabasesFromFile(file)) {
+			loader.loadPatternDatabases(Runtime.getRuntime().availableProcessors());
+			if (file != null)
+				loader.savePatternDatabases(file);
+		}
+		System.out.printf("Optimal: cubes=%d length=%d seed=%d timeOut=%d s%n", cubes, length, seed, timeOut);
+		System.out.printf("pattern databases: %.1f ms%n", (System.nanoTime() - tStart) / 1e6);
+
+		String[] corpus = new String[cubes];
+		Random gen = new Random(seed);
+		for (int i = 0; i < cubes; i++)
+			corpus[i] = scramble(gen, length);
+
+		OptimalSearch optimal = new OptimalSearch();
+		Search search = new Search();
+		long[] nanos = new long[cubes];
+		long nodes = 0;
+		for (int i = 0; i < cubes; i++) {
+			tStart = System.nanoTime();
+			Solution solution = optimal.solveUntil(corpus[i], tStart + TimeUnit.SECONDS.toNanos(timeOut), null);
+			nanos[i] = System.nanoTime() - tStart;
+			nodes += solution.getNodeCount();
+			Solution twoPhase = search.solve(corpus[i], 21, timeOut);
+			System.out.printf("%-64s %s %2d  two-phase %2d%n", solution, solution.isSolved() ? "optimal    "
+					: "lower bound", optimal.getLowerBound(), twoPhase.length());
+		}
+		long total = 0;
+		for (long t : nanos)
+			total += t;
+		System.out.printf("%s  %.2f Mnodes/s%n", Bench.latencies(nanos), nodes * 1e3 / total);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A cube scrambled by length random moves, no two of them on the same face in a row.
+	private static String scramble(Random gen, int length) {
+		CubieCube cube = new CubieCube();
+		int last = -1;
+		for (int i = 0; i < length; i++) {
+			int axis;
+			do
+				axis = gen.nextInt(6);
+			while (axis == last);
+			last = axis;
+			for (int power = gen.nextInt(3); power >= 0; power--) {
+				cube.cornerMultiply(CubieCube.moveCube[axis]);
+				cube.edgeMultiply(CubieCube.moveCube[axis]);
+			}
+		}
+		return cube.toFaceCube().to_String();
+	}
+}
@@ -0,0 +1,76 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the time from the start of the table generation to the first solution, like the time from the launch of the
+ * app to its first solution: once waiting for all tables, once solving as soon as
+ * {@link PruneTableLoader#isSearchPossible()} allows it, with partially filled pruning tables.
+ * <p>
+ * All tables are generated again for every cube with {@link PruneTableLoader#loadAll(int, PruneTableLoader.Listener)}
+ * on all cores; the first round only warms up the JIT. Runs headless on a plain JVM, see docs/Build.txt. Arguments:
+ * [cubes] [seed] [maxDepth]
+ */
+public class PartialTablesBenchmark {
+
+	private static final int TIME_OUT = 60; // seconds per cube
+
+	public static void main(String[] args) throws InterruptedException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+		final int threads = Runtime.getRuntime().availableProcessors();
+
+		System.out.printf("Partial tables: cubes=%d seed=%d maxDepth=%d threads=%d%n", cubes, seed, maxDepth, threads);
+		String[] corpus = Bench.corpus(cubes, seed);
+		long[] complete = new long[cubes], partial = new long[cubes];
+		long completeNodes = 0, partialNodes = 0;
+		for (int i = -1; i < cubes; i++) {
+			String cube = corpus[Math.max(i, 0)];
+
+			Bench.clearTables();
+			long tStart = System.nanoTime();
+			new PruneTableLoader().loadAll(threads, null);
+			Solution s = solve(cube, maxDepth);
+			if (i >= 0) {
+				complete[i] = System.nanoTime() - tStart;
+				completeNodes += s.getNodeCount();
+			}
+
+			Bench.clearTables();
+			tStart = System.nanoTime();
+			final PruneTableLoader loader = new PruneTableLoader();
+			Thread generator = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						loader.loadAll(threads, null);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			generator.start();
+			while (!loader.isSearchPossible())
+				Thread.sleep(1);
+			s = solve(cube, maxDepth);
+			if (i >= 0) {
+				partial[i] = System.nanoTime() - tStart;
+				partialNodes += s.getNodeCount();
+			}
+			generator.join();
+		}
+		System.out.printf("all tables      %s  %12d nodes%n", Bench.latencies(complete), completeNodes / cubes);
+		System.out.printf("partial tables  %s  %12d nodes%n", Bench.latencies(partial), partialNodes / cubes);
+
+		// leave complete tables behind for the following benchmarks
+		Bench.loadTables();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static Solution solve(String cube, int maxDepth) {
+		Solution s = new Search().solve(cube, maxDepth, TIME_OUT);
+		if (!s.isSolved())
+			throw new IllegalStateException(s + " for " + cube);
+		return s;
+	}
+}
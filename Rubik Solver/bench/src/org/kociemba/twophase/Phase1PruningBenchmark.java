@@ -0,0 +1,33 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Compares the phase 1 pruning tables of {@link Search.Phase1Pruning} on the same seeded corpus: generation time of the
+ * extra tables, generated nodes and solve latency.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Needs about 100 MB of heap. Arguments: [cubes] [seed] [maxDepth]
+ */
+public class Phase1PruningBenchmark {
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+
+		PruneTableLoader loader = Bench.loadTables();
+		long tStart = System.nanoTime();
+		loader.loadSymmetryTables(Runtime.getRuntime().availableProcessors());
+		System.out.printf("Phase 1 pruning: cubes=%d seed=%d maxDepth=%d%n", cubes, seed, maxDepth);
+		System.out.printf("tables: %.1f ms + symmetry reduced %.1f ms%n", loader.getTotalNanos() / 1e6,
+				(System.nanoTime() - tStart) / 1e6);
+
+		String[] corpus = Bench.corpus(cubes, seed);
+		for (Search.Phase1Pruning pruning : Search.Phase1Pruning.values()) {
+			Search search = new Search(pruning);
+			SearchBenchmark.run(search, corpus, 25, new long[cubes]); // warm up the JIT
+			long[] nanos = new long[cubes];
+			SearchBenchmark.Result r = SearchBenchmark.run(search, corpus, maxDepth, nanos);
+			System.out.printf("%-16s %s  %12d nodes  failed %d%n", pruning, Bench.latencies(nanos), r.nodes, r.failed);
+		}
+	}
+}
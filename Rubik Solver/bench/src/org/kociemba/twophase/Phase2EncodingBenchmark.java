@@ -0,0 +1,51 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Compares the encodings of {@link PruneTableLoader.Phase2Encoding} on the same seeded corpus: memory and generation
+ * time of the phase 2 pruning tables, node rate and solve latency.
+ * <p>
+ * Both encodings give the search the same exact distances, so they must generate the same nodes and find the same
+ * solutions; the benchmark fails if they do not. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes]
+ * [seed] [maxDepth]
+ */
+public class Phase2EncodingBenchmark {
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+
+		System.out.printf("Phase 2 encoding: cubes=%d seed=%d maxDepth=%d%n", cubes, seed, maxDepth);
+		String[] corpus = Bench.corpus(cubes, seed);
+		long expectedNodes = -1;
+		for (PruneTableLoader.Phase2Encoding encoding : PruneTableLoader.Phase2Encoding.values()) {
+			PruneTableLoader loader = new PruneTableLoader(encoding);
+			while (!loader.loadingFinished())
+				loader.loadNext(true);
+			long bytes = encoding == PruneTableLoader.Phase2Encoding.MOD3 ? 4L
+					* (CoordCube.Slice_URFtoDLF_Parity_Prun3.capacity() + CoordCube.Slice_URtoDF_Parity_Prun3
+							.capacity())
+					: CoordCube.Slice_URFtoDLF_Parity_Prun.capacity() + CoordCube.Slice_URtoDF_Parity_Prun.capacity();
+
+			Search search = new Search();
+			SearchBenchmark.run(search, corpus, 25, new long[cubes]); // warm up the JIT
+			long[] nanos = new long[cubes];
+			SearchBenchmark.Result r = SearchBenchmark.run(search, corpus, maxDepth, nanos);
+			long total = 0;
+			for (long t : nanos)
+				total += t;
+			System.out.printf("%-6s tables %7d bytes %7.1f ms  %s  %6.2f Mnodes/s  failed %d%n", encoding, bytes,
+					(loader.getGenerationNanos(8) + loader.getGenerationNanos(9)) / 1e6, Bench.latencies(nanos),
+					r.nodes * 1e3 / total, r.failed);
+			if (expectedNodes >= 0 && r.nodes != expectedNodes)
+				throw new IllegalStateException(encoding + " generated " + r.nodes + " nodes instead of " + expectedNodes);
+			expectedNodes = r.nodes;
+		}
+
+		// leave the default tables behind for the following benchmarks
+		PruneTableLoader loader = new PruneTableLoader();
+		while (!loader.loadingFinished())
+			loader.loadNext();
+	}
+}
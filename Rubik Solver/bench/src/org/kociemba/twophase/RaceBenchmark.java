@@ -0,0 +1,52 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Compares {@link RaceSolver} with a single {@link Search} on the same seeded corpus: latency and length of the first
+ * solution, and the length of the shortest solution the race finds within timeOut seconds.
+ * <p>
+ * The six searches of the race only run in parallel with six free cores. Runs headless on a plain JVM, see
+ * docs/Build.txt. Arguments: [cubes] [seed] [maxDepth] [timeOut]
+ */
+public class RaceBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+		int timeOut = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		Bench.loadTables();
+		String[] corpus = Bench.corpus(cubes, seed);
+		System.out.printf("Race: cubes=%d seed=%d maxDepth=%d timeOut=%d cores=%d%n", cubes, seed, maxDepth, timeOut,
+				Runtime.getRuntime().availableProcessors());
+
+		long[] nanos = new long[cubes];
+		SearchBenchmark.run(new Search(), corpus, 25, nanos); // warm up the JIT
+		SearchBenchmark.Result r = SearchBenchmark.run(new Search(), corpus, maxDepth, nanos);
+		System.out.printf("%-9s %s  length %5.2f%n", "search", Bench.latencies(nanos), (double) r.moves
+				/ (cubes - r.failed));
+
+		RaceSolver race = new RaceSolver();
+		try {
+			for (int shortest = 0; shortest < 2; shortest++) {
+				long moves = 0;
+				int solved = 0;
+				for (int i = 0; i < cubes; i++) {
+					long tStart = System.nanoTime();
+					Solution solution = shortest == 0 ? race.solve(corpus[i], maxDepth, timeOut) : race.solveShortest(
+							corpus[i], maxDepth, timeOut);
+					nanos[i] = System.nanoTime() - tStart;
+					if (solution.isSolved()) {
+						moves += solution.length();
+						solved++;
+					}
+				}
+				System.out.printf("%-9s %s  length %5.2f%n", shortest == 0 ? "race" : "shortest", Bench.latencies(nanos),
+						(double) moves / solved);
+			}
+		} finally {
+			race.shutdown();
+		}
+	}
+}
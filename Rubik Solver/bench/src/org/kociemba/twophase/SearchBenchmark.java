@@ -0,0 +1,70 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the latency distribution and the node rate of {@link Search} on a fixed, seeded corpus of random cubes, once
+ * for every given maximal depth, followed by the {@link SearchStats} of the run.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [maxDepth ...]
+ */
+public class SearchBenchmark {
+
+	private static final int[] DEPTHS = { 21, 22, 23, 25 };
+	private static final int TIME_OUT = 60; // seconds per cube
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int[] depths = DEPTHS;
+		if (args.length > 2) {
+			depths = new int[args.length - 2];
+			for (int i = 0; i < depths.length; i++)
+				depths[i] = Integer.parseInt(args[i + 2]);
+		}
+
+		Bench.loadTables();
+		String[] corpus = Bench.corpus(cubes, seed);
+		System.out.printf("Search: cubes=%d seed=%d%n", cubes, seed);
+
+		Search search = new Search();
+		run(search, corpus, 25, new long[cubes]); // warm up the JIT; cheap because almost no phase 2 search fails
+		for (int maxDepth : depths) {
+			long[] nanos = new long[cubes];
+			SearchStats before = SearchStats.snapshot();
+			Result r = run(search, corpus, maxDepth, nanos);
+			SearchStats stats = SearchStats.snapshot().minus(before);
+			long total = 0;
+			for (long t : nanos)
+				total += t;
+			System.out.printf("maxDepth=%d  %s  length %5.2f  %6.2f Mnodes/s  failed %d%n", maxDepth,
+					Bench.latencies(nanos), (double) r.moves / (cubes - r.failed), r.nodes * 1e3 / total, r.failed);
+			System.out.printf("            %s%n", stats);
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	static class Result {
+		long nodes; // generated nodes of all solves
+		long moves; // total length of all solutions found
+		int failed; // cubes without solution within maxDepth or TIME_OUT
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Solve all cubes of the corpus and record the time of every solve in nanos.
+	static Result run(Search search, String[] corpus, int maxDepth, long[] nanos) {
+		Result r = new Result();
+		for (int i = 0; i < corpus.length; i++) {
+			long tStart = System.nanoTime();
+			Solution solution = search.solve(corpus[i], maxDepth, TIME_OUT);
+			nanos[i] = System.nanoTime() - tStart;
+			r.nodes += solution.getNodeCount();
+			if (solution.getStatus() == Solution.Status.NO_SOLUTION || solution.getStatus() == Solution.Status.TIMEOUT)
+				r.failed++;
+			else if (!solution.isSolved())
+				throw new IllegalStateException(solution + " for " + corpus[i]);
+			else
+				r.moves += solution.length();
+		}
+		return r;
+	}
+}
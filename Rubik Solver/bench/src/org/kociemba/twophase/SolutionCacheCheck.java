@@ -0,0 +1,63 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Checks that {@link SolutionCache} maps its solutions back correctly: solves a seeded corpus of random cubes through
+ * the cache, then all 2 * 48 cubes S * cube * S^-1 and S * cube^-1 * S^-1 of every cube, which are answered from the
+ * cache. Every solution is applied to the {@link CubieCube} of its cube, which must then be the solved cube, and the
+ * variants must have solutions of the same length as their cube. Prints every failure and exits with status 1 if
+ * there is one.
+ * <p>
+ * Runs headless on a plain JVM, see docs/Build.txt. Arguments: [cubes] [seed] [maxDepth]
+ */
+public class SolutionCacheCheck {
+
+	private static final int TIME_OUT = 60; // seconds per cube
+
+	public static void main(String[] args) {
+		int cubes = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 21;
+
+		Bench.loadTables();
+		CubeCorpus corpus = CubeCorpus.random(seed);
+		System.out.printf("SolutionCache: cubes=%d seed=%d maxDepth=%d%n", cubes, seed, maxDepth);
+
+		SolutionCache cache = new SolutionCache(cubes);
+		Search search = new Search();
+		int failed = 0, variants = 0;
+		long tStart = System.nanoTime();
+		for (int i = 0; i < cubes; i++) {
+			String facelets = corpus.get(i);
+			Solution solution = cache.solve(search, facelets, maxDepth, TIME_OUT);
+			if (!solution.isSolved() || !Bench.solves(facelets, solution)) {
+				System.out.printf("cube %d %s not solved by %s%n", i, facelets, solution);
+				failed++;
+				continue;
+			}
+
+			CubieCube cc = new FaceCube(facelets).toCubieCube();
+			CubieCube inv = new CubieCube();
+			cc.invCubieCube(inv);
+			for (int inverse = 0; inverse < 2; inverse++)
+				for (int k = 0; k < Symmetry.N_SYM_ALL; k++) {
+					CubieCube s = Symmetry.symCube[k];
+					CubieCube c = new CubieCube(s.cp, s.co, s.ep, s.eo);
+					Symmetry.multiply(c, inverse == 0 ? cc : inv);
+					Symmetry.multiply(c, Symmetry.symCube[Symmetry.invIdx[k]]);
+					String variant = c.toFaceCube().to_String();
+					Solution v = cache.solve(search, variant, maxDepth, TIME_OUT);
+					variants++;
+					if (!v.isSolved() || v.length() != solution.length() || !Bench.solves(variant, v)) {
+						System.out.printf("cube %d symmetry %d inverse %b: %s not solved by %s%n", i, k, inverse == 1,
+								variant, v);
+						failed++;
+					}
+				}
+		}
+		System.out.printf("%d cubes and %d variants in %.1f s, hits %d, misses %d, failed %d%n", cubes, variants,
+				(System.nanoTime() - tStart) / 1e9, cache.getHits(), cache.getMisses(), failed);
+		if (failed > 0)
+			System.exit(1);
+	}
+}
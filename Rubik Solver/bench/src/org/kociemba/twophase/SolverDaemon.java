@@ -0,0 +1,25 @@
+package org.kociemba.twophase;
+
+import java.io.IOException;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Starts a {@link SolverServer} on the loopback interface for the desktop tools and serves until the JVM is stopped.
+ * The tables are generated once on all cores. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [port]
+ * [threads] [capacity]
+ */
+public class SolverDaemon {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8084;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+		long tStart = System.nanoTime();
+		new PruneTableLoader().loadAll(Runtime.getRuntime().availableProcessors(), null);
+		SolverServer server = new SolverServer(port, threads, capacity);
+		System.out.printf("Solver daemon on 127.0.0.1:%d, threads=%d capacity=%d, tables in %.1f ms%n",
+				server.getPort(), threads, capacity, (System.nanoTime() - tStart) / 1e6);
+		server.join();
+	}
+}
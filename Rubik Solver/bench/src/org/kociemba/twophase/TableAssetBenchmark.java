@@ -0,0 +1,103 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Compares the ways the app can get its tables at startup: generating them with
+ * {@link PruneTableLoader#loadAll(int, PruneTableLoader.Listener)}, reading the uncompressed table file with
+ * {@link PruneTableLoader#loadFromFile(File)} and streaming the compressed asset with
+ * {@link PruneTableLoader#loadFromChannel(java.nio.channels.ReadableByteChannel)}.
+ * <p>
+ * The asset is read through a channel on a plain InputStream, like the InputStream of an Android asset. Prints file
+ * size, load time and the peak of the Java heap above the level before loading; the peak is the sum of the peaks of
+ * all heap pools, so it may overestimate. The tables themselves are outside of the heap, see
+ * {@link PruneTableLoader#getTableBytes()}; the heap only holds the buffers used while loading. The first run only
+ * warms up the JIT. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [runs]
+ */
+public class TableAssetBenchmark {
+
+	private static final String[] METHODS = { "generate", "uncompressed file", "compressed asset" };
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		File file = File.createTempFile("cube", ".tbls");
+		File asset = File.createTempFile("cube", ".tblz");
+		file.deleteOnExit();
+		asset.deleteOnExit();
+		PruneTableLoader loader = Bench.loadTables();
+		loader.saveToFile(file);
+		loader.saveCompressed(asset);
+
+		long[][] nanos = new long[METHODS.length][runs];
+		long[] peak = new long[METHODS.length];
+		for (int run = -1; run < runs; run++)
+			for (int m = 0; m < METHODS.length; m++) {
+				Bench.clearTables();
+				long base = resetPeak();
+				long tStart = System.nanoTime();
+				loader = new PruneTableLoader();
+				boolean loaded = true;
+				if (m == 0) {
+					loader.loadAll(threads, null);
+				} else if (m == 1) {
+					loaded = loader.loadFromFile(file);
+				} else {
+					FileInputStream in = new FileInputStream(asset);
+					try {
+						loaded = loader.loadFromChannel(Channels.newChannel(in));
+					} finally {
+						in.close();
+					}
+				}
+				long t = System.nanoTime() - tStart;
+				if (!loaded)
+					throw new IllegalStateException(METHODS[m] + " failed");
+				if (run < 0)
+					continue;
+				nanos[m][run] = t;
+				peak[m] = Math.max(peak[m], peak() - base);
+			}
+
+		System.out.printf("Table asset: runs=%d threads=%d tables %d bytes off heap%n", runs, threads,
+				PruneTableLoader.getTableBytes());
+		long[] sizes = { 0, file.length(), asset.length() };
+		for (int m = 0; m < METHODS.length; m++) {
+			long[] sorted = nanos[m].clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-18s %8d bytes  min %8.1f  p50 %8.1f ms  peak heap %6.1f MB%n", METHODS[m], sizes[m],
+					sorted[0] / 1e6, Bench.percentile(sorted, 0.5) / 1e6, peak[m] / 1e6);
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Collect the garbage, reset the peaks of the heap pools and return the heap in use.
+	private static long resetPeak() {
+		System.gc();
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				used += pool.getUsage().getUsed();
+			}
+		return used;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static long peak() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+}
@@ -0,0 +1,39 @@
+package org.kociemba.twophase;
+
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Measures the generation time of every table of {@link PruneTableLoader}.
+ * <p>
+ * All tables are generated again in every run; the first run only warms up the JIT. Prints the minimum and the median
+ * of the measured runs. Runs headless on a plain JVM, see docs/Build.txt. Arguments: [runs]
+ */
+public class TableBenchmark {
+
+	private static final int TABLES = 12;
+
+	public static void main(String[] args) {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+		long[][] nanos = new long[TABLES + 1][runs]; // the last row holds the total of each run
+		for (int run = -1; run < runs; run++) {
+			PruneTableLoader loader = new PruneTableLoader();
+			while (!loader.loadingFinished())
+				loader.loadNext(true);
+			if (run < 0)
+				continue;
+			for (int t = 0; t < TABLES; t++)
+				nanos[t][run] = loader.getGenerationNanos(t);
+			nanos[TABLES][run] = loader.getTotalNanos();
+		}
+
+		System.out.printf("Tables: runs=%d%n", runs);
+		for (int t = 0; t <= TABLES; t++) {
+			long[] sorted = nanos[t].clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-28s min %8.1f  p50 %8.1f ms%n", t < TABLES ? PruneTableLoader.getTableName(t) : "total",
+					sorted[0] / 1e6, Bench.percentile(sorted, 0.5) / 1e6);
+		}
+	}
+}
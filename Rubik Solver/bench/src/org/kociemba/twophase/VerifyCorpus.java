@@ -0,0 +1,58 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Checks every cube of a corpus file in the {@link CubeCorpus.Format#FACELETS} format, for example one written by
+ * {@link GenerateCorpus}, with {@link FaceletParser#verify(byte[], int, int, int, int[])} on the calling thread. The
+ * file is read in blocks straight into the buffer of the parser; no string is created. Prints the number of cubes for
+ * every error code of {@link Tools#verify(CharSequence)} and the throughput in states per second. Runs headless on a
+ * plain JVM, see docs/Build.txt. Arguments: file
+ */
+public class VerifyCorpus {
+
+	private static final int STRIDE = 55; // 54 facelets and a line feed
+	private static final int BLOCK = 4096; // cubes per read
+
+	public static void main(String[] args) throws IOException {
+		File file = new File(args[0]);
+		ByteBuffer buf = ByteBuffer.allocate(STRIDE * BLOCK);
+		int[] results = new int[BLOCK];
+		long[] count = new long[7];
+		FaceletParser parser = new FaceletParser();
+
+		long tStart = System.nanoTime();
+		long cubes = 0;
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			int read;
+			do {
+				read = channel.read(buf);
+				int n = buf.position() / STRIDE;
+				parser.verify(buf.array(), 0, STRIDE, n, results);
+				for (int i = 0; i < n; i++)
+					count[-results[i]]++;
+				cubes += n;
+				buf.flip();
+				buf.position(n * STRIDE);
+				buf.compact(); // keep the start of an incomplete cube
+			} while (read >= 0);
+			if (buf.position() > 0)
+				throw new IOException(file + " does not end with a complete cube");
+		} finally {
+			in.close();
+		}
+		long t = System.nanoTime() - tStart;
+
+		System.out.printf("%s: %d cubes in %.1f ms, %.0f states/s%n", file, cubes, t / 1e6, cubes * 1e9 / t);
+		for (int s = 0; s < count.length; s++)
+			if (count[s] > 0)
+				System.out.printf("%4d %12d%n", -s, count[s]);
+	}
+}
@@ -135,7 +135,7 @@ public class AndroidActivity extends Activity {
     	 * this seems to work find.
     	 * =+= Which thread are we on?
     	 */
-    	new Util.LoadPruningTablesTask().execute(appStateMachine);
+    	new Util.LoadPruningTablesTask(this).execute(appStateMachine);
     }
 
     
@@ -233,6 +233,7 @@ public class AndroidActivity extends Activity {
 //        if(glSurfaceView != null)
 //        	glSurfaceView.destroyDrawingCache();
         MonoChromatic.shutdownOpenCL();
+        appStateMachine.shutdown();
     }
 
     
@@ -704,6 +704,11 @@ public class Annotation {
    				Core.putText(image, "Cube is Complete and Verified", new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
    			break;
 
+   		case SOLVING:
+   			if(MenuAndParams.userTextDisplay == true)
+   				Core.putText(image, "Computing Solution", new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
+   			break;
+
         case INCORRECT:
             Core.putText(image, "Cube is Complete but Incorrect: " + stateModel.verificationResults, new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
         break;
@@ -712,19 +717,24 @@ public class Annotation {
             Core.putText(image, "Cube Solution Error: " + stateModel.verificationResults, new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
         break;
 
+        case SOLVER_FAILED:
+            Core.putText(image, "Cube Solver Failed", new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
+        break;
+
   		case SOLVED:
    			if(MenuAndParams.userTextDisplay == true) {
    				Core.putText(image, "SOLUTION: ", new Point(0, 60), Constants.FontFace, 4, ColorTileEnum.WHITE.cvColor, 4);
    				Core.rectangle(image, new Point(0, 60), new Point(1270, 120), ColorTileEnum.BLACK.cvColor, -1);
-   				Core.putText(image, "" + stateModel.solutionResults, new Point(0, 120), Constants.FontFace, 2, ColorTileEnum.WHITE.cvColor, 2);
+   				Core.putText(image, "" + stateModel.solution, new Point(0, 120), Constants.FontFace, 2, ColorTileEnum.WHITE.cvColor, 2);
    			}
    			break;
 
    		case ROTATE_FACE:
-   			String moveNumonic = stateModel.solutionResultsArray[stateModel.solutionResultIndex];
-   			Log.d(Constants.TAG, "Move:" + moveNumonic + ":");
+   			char face = stateModel.solution.getFace(stateModel.solutionResultIndex);
+   			int power = stateModel.solution.getPower(stateModel.solutionResultIndex);
+   			Log.d(Constants.TAG, "Move:" + face + power + ":");
    			StringBuffer moveDescription = new StringBuffer("Rotate ");
-   			switch(moveNumonic.charAt(0)) {
+   			switch(face) {
    			case 'U': moveDescription.append("Top Face"); break;
    			case 'D': moveDescription.append("Down Face"); break;
    			case 'L': moveDescription.append("Left Face"); break;
@@ -732,11 +742,11 @@ public class Annotation {
    			case 'F': moveDescription.append("Front Face"); break;
    			case 'B': moveDescription.append("Back Face"); break;
    			}
-   			if(moveNumonic.length() == 1)
+   			if(power == 1)
    				moveDescription.append(" Clockwise");
-   			else if(moveNumonic.charAt(1) == '2')
+   			else if(power == 2)
    				moveDescription.append(" 180 Degrees");
-   			else if(moveNumonic.charAt(1) == '\'')
+   			else if(power == 3)
    				moveDescription.append(" Counter Clockwise");
    			else
    				moveDescription.append("?");
@@ -34,11 +34,19 @@
 package org.ar.rubik;
 
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.ar.rubik.Constants.AppStateEnum;
 import org.ar.rubik.Constants.FaceNameEnum;
 import org.ar.rubik.Constants.GestureRecogniztionStateEnum;
 import org.ar.rubik.RubikFace.FaceRecognitionStatusEnum;
+import org.kociemba.twophase.PruneTableLoader;
 import org.kociemba.twophase.Search;
+import org.kociemba.twophase.Solution;
 import org.kociemba.twophase.Tools;
 
 import android.opengl.Matrix;
@@ -57,6 +65,9 @@ public class AppStateMachine {
 	// 12 tables need to be generated.  When count is 12, tables are valid.  Used by prune table loader.  
 	public int pruneTableLoaderCount = 0;
 
+	// Set by prune table loader task.  Tells if a solve is already possible with partially generated tables.
+	public volatile PruneTableLoader pruneTableLoader = null;
+
 	// Allows for more pleasing user interface
 	private int gotItCount = 0;
 
@@ -78,6 +89,22 @@ public class AppStateMachine {
 	// Set when we want to recall a state from file, but do it synchronously in the frame thread.
 	private boolean scheduleRecall = false;
 
+	// Computes Two Phase solutions so that the frame thread never waits for a solve.
+	private final ExecutorService solverExecutor = Executors.newSingleThreadExecutor();
+
+	// Solution being computed by the solver thread while in the SOLVING state; polled by the frame thread.
+	private Future<Solution> solverFuture = null;
+
+	// Time of the last frame since the solve was submitted, and the frame intervals during the SOLVING state.
+	// Logged to check that camera frames keep their rate while the solver thread runs.
+	private long solvingFrameNanos = 0;
+	private long solvingFrameIntervalSumNanos = 0;
+	private long solvingFrameIntervalMaxNanos = 0;
+	private int solvingFrameCount = 0;
+
+	// Application launch time, to measure how long it takes until the first solution.
+	private final long launchNanos = System.nanoTime();
+
 
 	/**
 	 * Application State Machine Constructor
@@ -109,6 +136,7 @@ public class AppStateMachine {
 
 		// Reset Application State.  All past is forgotten.
 		if(scheduleReset == true) {
+			cancelSolve();
 			gotItCount = 0;
 			scheduleReset = false;
 			candidateRubikFace = null;
@@ -120,6 +148,7 @@ public class AppStateMachine {
 		
 		// Reset Application State, and then recall app state from file.
 		if(scheduleRecall == true) {
+			cancelSolve();
 			gotItCount = 0;
 			scheduleRecall = false;
 			candidateRubikFace = null;
@@ -291,7 +320,7 @@ public class AppStateMachine {
 		case WAITING_MOVE:
 			stateModel.appState = AppStateEnum.ROTATE_FACE;
 			stateModel.solutionResultIndex++;
-			if(stateModel.solutionResultIndex == stateModel.solutionResultsArray.length)
+			if(stateModel.solutionResultIndex == stateModel.solution.length())
 				stateModel.appState = AppStateEnum.DONE;
 			break;
 
@@ -453,6 +482,12 @@ public class AppStateMachine {
 			if(pruneTableLoaderCount == 12) {
 				stateModel.appState = AppStateEnum.VERIFIED;
 			}
+			
+			// Solve (more slowly) with prune tables that are still being generated.
+			else if(MenuAndParams.partialTableSolve == true && pruneTableLoader != null && pruneTableLoader.isSearchPossible()) {
+				Log.i(Constants.TAG_STATE, "Solving with partial prune tables: " + pruneTableLoaderCount + " of 12 complete");
+				stateModel.appState = AppStateEnum.VERIFIED;
+			}
 			break;
 
 
@@ -507,15 +542,59 @@ public class AppStateMachine {
 
 
 		case VERIFIED:
-			String cubeString2 = stateModel.getStringRepresentationOfCube();
-
-			// Returns 0 if solution computed
-			stateModel.solutionResults = Search.solution(cubeString2, 25, 5, false);
-			Log.i(Constants.TAG_STATE, "Solution Results: " + stateModel.solutionResults);
-			if (stateModel.solutionResults.contains("Error")) {
-				char solutionCode = stateModel.solutionResults.charAt(stateModel.solutionResults.length() - 1);
-				stateModel.verificationResults = solutionCode - '0';
-				Log.i(Constants.TAG_STATE, "Solution Error: " + Util.getTwoPhaseErrorString(solutionCode) );
+			final String cubeString2 = stateModel.getStringRepresentationOfCube();
+
+			// Solve in the solver thread; frames keep flowing while in the SOLVING state.
+			solverFuture = solverExecutor.submit(new Callable<Solution>() {
+				@Override
+				public Solution call() {
+					return new Search().solve(cubeString2, 25, 5);
+				}
+			});
+			solvingFrameNanos = System.nanoTime();
+			solvingFrameIntervalSumNanos = 0;
+			solvingFrameIntervalMaxNanos = 0;
+			solvingFrameCount = 0;
+			stateModel.appState = AppStateEnum.SOLVING;
+			break;
+
+
+		case SOLVING:
+			long frameNanos = System.nanoTime();
+			long frameIntervalNanos = frameNanos - solvingFrameNanos;
+			solvingFrameNanos = frameNanos;
+			solvingFrameIntervalSumNanos += frameIntervalNanos;
+			solvingFrameIntervalMaxNanos = Math.max(solvingFrameIntervalMaxNanos, frameIntervalNanos);
+			solvingFrameCount++;
+			Log.d(Constants.TAG_STATE, "Frame interval while solving: " + frameIntervalNanos / 1000000 + " ms");
+
+			if(solverFuture.isDone() == false)
+				break;
+
+			Log.i(Constants.TAG_STATE, "Frames while solving: " + solvingFrameCount + ", interval mean "
+					+ solvingFrameIntervalSumNanos / solvingFrameCount / 1000000 + " ms, max " + solvingFrameIntervalMaxNanos / 1000000 + " ms");
+
+			// Publish result to the state model here in the frame thread.
+			try {
+				stateModel.solution = solverFuture.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e) {
+				// The solver crashed, e.g. on missing tables; this is not a verdict on the cube.
+				Log.e(Constants.TAG_STATE, "Solver failed", e.getCause());
+				stateModel.appState = AppStateEnum.SOLVER_FAILED;
+				solverFuture = null;
+				break;
+			}
+			solverFuture = null;
+			Log.i(Constants.TAG_STATE, "Solution Results: " + stateModel.solution + " in " + stateModel.solution.getNanos() / 1000000 + " ms, "
+					+ (System.nanoTime() - launchNanos) / 1000000 + " ms after launch with " + pruneTableLoaderCount + " of 12 prune tables complete");
+			if (stateModel.solution.isSolved() == false) {
+				stateModel.verificationResults = stateModel.solution.getStatus().getCode();
+				Log.i(Constants.TAG_STATE, "Solution Error: " + Util.getTwoPhaseErrorString((char)(stateModel.verificationResults + '0')) );
 				stateModel.appState = AppStateEnum.ERROR;
 			}
 			else {
@@ -525,8 +604,7 @@ public class AppStateMachine {
 
 
 		case SOLVED:
-			stateModel.solutionResultsArray = stateModel.solutionResults.split(" ");
-			Log.i(Constants.TAG_STATE, "Solution Results Array: " + stateModel.solutionResultsArray);
+			Log.i(Constants.TAG_STATE, "Solution Moves: " + stateModel.solution.length());
 			stateModel.solutionResultIndex = 0;
 			stateModel.appState = AppStateEnum.ROTATE_FACE;
 			break;
@@ -547,6 +625,28 @@ public class AppStateMachine {
 	}
 
 
+	/**
+	 * Stop the solver thread.  Called when the activity is destroyed.
+	 */
+	public void shutdown() {
+		solverExecutor.shutdownNow();
+	}
+
+
+	/**
+	 * Cancel Solve
+	 * 
+	 * Interrupt a solve still running in the solver thread.  The search notices the
+	 * interrupt and returns CANCELLED, which nobody polls anymore.
+	 */
+	private void cancelSolve() {
+		if(solverFuture != null) {
+			solverFuture.cancel(true);
+			solverFuture = null;
+		}
+	}
+
+
 	/**
 	 * Request that the state is recalled from file.  This is performed
 	 * synchronously in the frame thread to eliminate concurrency problems.
@@ -65,9 +65,11 @@ public class Constants {
 		COMPLETE,      // All six faces have been captured, and we seem to have valid color.
 		BAD_COLORS,    // All six faces have been captured, but we do not have properly nine tiles of each color.
 		VERIFIED,      // Two Phase solution has verified that the cube tile/colors/positions are a valid cube.
+		SOLVING,       // Two Phase solution is being computed in the solver thread.
 		WAIT_TABLES,   // Waiting for TwoPhase Prune Tree generation to complete.
 		INCORRECT,     // Two Phase solution could not produce a solution; see error code.
 		ERROR,         // Two Phase solution has analyzed the cube and found it to be invalid.
+		SOLVER_FAILED, // Two Phase solver thread threw an exception; see log.
 		SOLVED,        // Two Phase solution has analyzed the cube and found a solution.
 		ROTATE_FACE,   // Inform user to perform a face rotation
 		WAITING_MOVE,  // Wait for face rotation to complete
@@ -83,6 +83,9 @@ public class MenuAndParams {
     
     // Toggle Camera Calibration Diagnostic Mode
     public static boolean cameraCalDiagMode = false;
+    
+    // Toggle solving with partially generated prune tables instead of waiting for all of them
+    public static boolean partialTableSolve = true;
         
     // Specifies where image comes from
     public static ImageSourceModeEnum imageSourceMode = ImageSourceModeEnum.NORMAL;
@@ -389,6 +392,10 @@ public class MenuAndParams {
         case R.id.toggleCalDiagMenuItem:
             cameraCalDiagMode ^= true;
             break;
+
+        case R.id.togglePartialTableSolveMenuItem:
+            partialTableSolve ^= true;
+            break;
 		}
 
 		return true;
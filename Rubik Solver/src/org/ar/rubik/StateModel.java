@@ -42,6 +42,7 @@ import org.ar.rubik.Constants.ColorTileEnum;
 import org.ar.rubik.Constants.FaceNameEnum;
 import org.ar.rubik.Constants.AppStateEnum;
 import org.ar.rubik.Constants.GestureRecogniztionStateEnum;
+import org.kociemba.twophase.Solution;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 
@@ -81,13 +82,10 @@ public class StateModel {
     // Result when Two Phase algorithm is ask to evaluate if cube in valid.  If valid, code is zero.
 	public int verificationResults;
 	
-	// String notation on how to solve cube.
-	public String solutionResults;
+	// Moves that solve the cube.
+	public Solution solution;
 	
-	// Above, but broken into individual moves.
-	public String [] solutionResultsArray;
-	
-	// Index to above array as to which move we are on.
+	// Index to above moves as to which move we are on.
 	public int solutionResultIndex;
 	
 	// We assume that faces will be explored in a particular sequence.
@@ -390,13 +388,10 @@ public class StateModel {
 		// Result when Two Phase algorithm is ask to evaluate if cube in valid.  If valid, code is zero.
 		verificationResults = 0;
 
-		// String notation on how to solve cube.
-		solutionResults = null;
-
-		// Above, but broken into individual moves.
-		solutionResultsArray = null;
+		// Moves that solve the cube.
+		solution = null;
 
-		// Index to above array as to which move we are on.
+		// Index to above moves as to which move we are on.
 		solutionResultIndex = 0;
 
 		// We assume that faces will be explored in a particular sequence.
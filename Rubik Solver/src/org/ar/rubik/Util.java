@@ -36,6 +36,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
 import java.util.HashSet;
 
 import org.ar.rubik.Constants.ColorTileEnum;
@@ -390,7 +391,7 @@ public class Util {
 	/**
 	 * Get Two Phase Error String
 	 * 
-	 * Arg should be a character between 0 and 8 inclusive.
+	 * Arg should be a character between 0 and 9 inclusive.
 	 * 
 	 * @param errorCode
 	 * @return
@@ -425,6 +426,9 @@ public class Util {
 		case '8':
 			stringErrorMessage = "Timeout, no solution found within given maximum time!";
 			break;
+		case '9':
+			stringErrorMessage = "Solve was cancelled!";
+			break;
 		default:
 			stringErrorMessage = "Unknown error code returned: ";
 			break;
@@ -476,26 +480,87 @@ public class Util {
 	/**
 	 * Load Rubik Logic Algorithm Pruning Tables is a separate thread.
 	 * 
+	 * The tables are streamed from the prebuilt compressed asset, see docs/Build.txt.  If the asset
+	 * is missing or stale, they are read from the table file of an earlier start or generated.
+	 * 
 	 * @author android.steve@cl-sw.com
 	 *
 	 */
 	public static class LoadPruningTablesTask extends AsyncTask<AppStateMachine, Void, Void> {
 		
+	    /** Compressed table asset built on the desktop by BuildTableAsset */
+	    public static final String TABLE_ASSET = "cube.tblz";
+
 	    private PruneTableLoader tableLoader = new PruneTableLoader();
 	    private AppStateMachine appStateMachine;
+	    private Context context;
+	    
+	    public LoadPruningTablesTask(Context context) {
+	    	this.context = context.getApplicationContext();
+	    }
 
 	    @Override
 	    protected Void doInBackground(AppStateMachine... params) {
 	    	
 	    	appStateMachine = params[0];
 	    	
-	        /* load all tables if they are not already in RAM */
-	        while (!tableLoader.loadingFinished()) { // while tables are left to load
-	            tableLoader.loadNext(); // load next pruning table
-	            appStateMachine.pruneTableLoaderCount++;
-	            Log.i(Constants.TAG_STATE, "Created a prune table.");
+	    	long tStart = System.nanoTime();
+	    	try {
+	    		InputStream stream = context.getAssets().open(TABLE_ASSET);
+	    		try {
+	    			if(tableLoader.loadFromChannel(Channels.newChannel(stream))) {
+	    				appStateMachine.pruneTableLoaderCount = 12;
+	    				Log.i(Constants.TAG_STATE, "Loaded all prune tables from asset " + TABLE_ASSET + " in " + (System.nanoTime() - tStart) / 1000000 + " ms.");
+	    				return null;
+	    			}
+	    			Log.w(Constants.TAG_STATE, "Stale or corrupt prune table asset: " + TABLE_ASSET);
+	    		}
+	    		finally {
+	    			stream.close();
+	    		}
+	    	}
+	    	catch (IOException e) {
+	    		Log.w(Constants.TAG_STATE, "Cannot open prune table asset: " + e);
+	    	}
+	    	
+	    	// Tables are cached in a file after they have been generated once.
+	    	File path = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
+	    	File file = new File(path, "cube.tbls");
+	    	
+	    	if(tableLoader.loadFromFile(file)) {
+	            appStateMachine.pruneTableLoaderCount = 12;
+	            Log.i(Constants.TAG_STATE, "Loaded all prune tables from file: " + file);
+	            return null;
+	    	}
+	    	
+	        /* load all tables if they are not already in RAM, using all cores; cubes can be solved before they are complete */
+	        appStateMachine.pruneTableLoader = tableLoader;
+	        int threads = Runtime.getRuntime().availableProcessors();
+	        try {
+	            tableLoader.loadAll(threads, new PruneTableLoader.Listener() {
+	                @Override
+	                public void onTableLoaded(int table, long nanos) {
+	                    appStateMachine.pruneTableLoaderCount++;
+	                    Log.i(Constants.TAG_STATE, "Created prune table " + PruneTableLoader.getTableName(table) + " in " + nanos / 1000000 + " ms.");
+	                }
+	            });
+	        }
+	        catch (InterruptedException e) {
+	            Log.e(Constants.TAG_STATE, "Interrupted while creating prune tables.");
+	            return null;
+	        }
+	        
+	        Log.i(Constants.TAG_STATE, "Completed all prune tables in " + tableLoader.getTotalNanos() / 1000000 + " ms on " + threads + " threads.");
+	        
+	        // Missing, stale or corrupt file: replace it with the freshly generated tables.
+	        try {
+	            path.mkdirs();
+	            tableLoader.saveToFile(file);
+	            Log.i(Constants.TAG_STATE, "SUCCESS writing prune tables to external storage: " + file);
+	        }
+	        catch (IOException e) {
+	            Log.e(Constants.TAG_STATE, "Fail writing prune tables to external storage: " + e);
 	        }
-	        Log.i(Constants.TAG_STATE, "Completed all prune table.");
 	        return null;
 	    }
 
@@ -48,6 +48,7 @@ import org.ar.rubik.StateModel;
 import org.ar.rubik.Util;
 import org.ar.rubik.gl.GLArrow.Amount;
 import org.ar.rubik.gl.GLCube.Transparency;
+import org.kociemba.twophase.Solution;
 import org.opencv.calib3d.Calib3d;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -426,32 +427,33 @@ public class GLRenderer implements GLSurfaceView.Renderer {
 	 */
 	private void renderCubeEdgeRotationArrow(final float[] mvpMatrix, int arrowRotationInDegrees) {
 		
-		String moveNumonic = stateModel.solutionResultsArray[stateModel.solutionResultIndex];
+		Solution solution = stateModel.solution;
+		int power = solution.getPower(stateModel.solutionResultIndex);
 
 		Rotation rotation;
 		Amount amount;
 		
-		if(moveNumonic.length() == 1)  {
+		if(power == 1)  {
 			rotation = Rotation.CLOCKWISE;
 			amount = Amount.QUARTER_TURN;
 		}
-		else if(moveNumonic.charAt(1) == '2') {
+		else if(power == 2) {
 			rotation = Rotation.ONE_HUNDRED_EIGHTY;
 			amount = Amount.HALF_TURN;
 		}
-		else if(moveNumonic.charAt(1) == '\'') {
+		else if(power == 3) {
 			rotation = Rotation.COUNTER_CLOCKWISE;
 			amount = Amount.QUARTER_TURN;
 		}
 		else
-			throw new java.lang.Error("Unknow rotation amount: problem with ascii format of logic solution");
+			throw new java.lang.Error("Unknow rotation amount: problem with logic solution");
 		
 		
 		Scalar color = null;
 		Direction direction = null;
 		
 		// Rotate and Translate Arrow as required by Rubik Logic Solution algorithm. 
-		switch(moveNumonic.charAt(0)) {
+		switch(solution.getFace(stateModel.solutionResultIndex)) {
 		case 'U':
 			color = stateModel.getFaceByName(FaceNameEnum.UP).observedTileArray[1][1].cvColor;
 			Matrix.translateM(mvpMatrix, 0, 0.0f, +2.0f, 0.0f);
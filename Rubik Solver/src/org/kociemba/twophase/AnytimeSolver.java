@@ -0,0 +1,134 @@
+package org.kociemba.twophase;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Solves a cube with the two-phase algorithm until a deadline and reports every solution that is shorter than all
+ * solutions before.
+ * <p>
+ * The first solution usually arrives after a few milliseconds. The search then goes on with a bound one move below the
+ * last solution, so every further solution is strictly shorter, until no shorter solution exists, the deadline passes
+ * or the solve is cancelled. The deadline and the cancellation are checked every few thousand nodes, see
+ * {@link Search#solveUntil(String, int, long, AtomicBoolean)}, so another thread can abandon a background solve by
+ * setting its cancellation token, without interrupting the solving thread. Like {@link Search}, every thread needs its
+ * own instance.
+ */
+public class AnytimeSolver {
+
+	/**
+	 * Receives the solutions of {@link AnytimeSolver#solve(String, int, long, AtomicBoolean, Listener)}.
+	 */
+	public interface Listener {
+		/**
+		 * Called on the solving thread for every solution that is shorter than all solutions before.
+		 * 
+		 * @param solution
+		 *          the moves of the solution; its node count and time are those of the solve so far
+		 */
+		void onSolution(Solution solution);
+	}
+
+	private final Search search;
+	private final FaceletParser parser = new FaceletParser();
+
+	/**
+	 * Creates a solver with the default phase 1 pruning tables.
+	 */
+	public AnytimeSolver() {
+		this(Search.Phase1Pruning.SLICE_FLIP_TWIST);
+	}
+
+	/**
+	 * Creates a solver that uses the given phase 1 pruning tables.
+	 */
+	public AnytimeSolver(Search.Phase1Pruning phase1Pruning) {
+		search = new Search(phase1Pruning);
+	}
+
+	/**
+	 * Streams progressively shorter solutions for a given cube to the listener.
+	 * 
+	 * @param facelets
+	 *          is the cube definition string, see {@link Facelet} for the format.
+	 * @param maxDepth
+	 *          the maximal allowed maneuver length of the first solution.
+	 * @param deadline
+	 *          the value of {@link System#nanoTime()} at which the search stops.
+	 * @param cancelled
+	 *          stops the search once it is set; may be null. The search also stops if the calling thread is
+	 *          interrupted, and leaves the interrupt status set.
+	 * @param listener
+	 *          receives every solution shorter than all solutions before, or null.
+	 * @return the shortest solution found, even if the search was stopped afterwards, or the reason why there is none:
+	 *         {@link Solution.Status#NO_SOLUTION} if there is no solution within maxDepth,
+	 *         {@link Solution.Status#TIMEOUT} or {@link Solution.Status#CANCELLED} if the search stopped before the first
+	 *         solution.
+	 */
+	public Solution solve(String facelets, int maxDepth, long deadline, AtomicBoolean cancelled, Listener listener) {
+		int s;
+		if ((s = parser.verify(facelets)) != 0)
+			return new Solution(Solution.Status.forCode(s), 0, 0);
+
+		Progress progress = new Progress(maxDepth, listener);
+		Solution result = search.solve(parser.cc, maxDepth, deadline, cancelled, progress);
+		return progress.best != null ? progress.best : result;
+	}
+
+	/**
+	 * Streams progressively shorter solutions for a given cube to the listener and returns the shortest one as a
+	 * solver string. The parameters are the same as for {@link #solve(String, int, long, AtomicBoolean, Listener)}.
+	 * 
+	 * @param useSeparator
+	 *          determines if a " . " separates the phase1 and phase2 parts of the solver string.
+	 * @return the shortest solution found or an error code of {@link Search#solution(String, int, long, boolean)}: Error
+	 *         7 if there is no solution within maxDepth, Error 8 if the deadline passed before the first solution.
+	 * @throws InterruptedException
+	 *           if the calling thread was interrupted. The solutions found before have been passed to the listener.
+	 */
+	public String solve(String facelets, int maxDepth, long deadline, boolean useSeparator, Listener listener)
+			throws InterruptedException {
+		Solution solution = solve(facelets, maxDepth, deadline, null, listener);
+		if (Thread.interrupted())
+			throw new InterruptedException();
+		return solution.toString(useSeparator);
+	}
+
+	/**
+	 * @return the number of nodes generated by the last solve, see {@link Search#getNodeCount()}.
+	 */
+	public long getNodeCount() {
+		return search.getNodeCount();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Lowers the bound of the search below every solution.
+	private class Progress implements Search.Solutions {
+		private final Listener listener;
+		private final long tStart = System.nanoTime();
+		private int bound;
+		Solution best;
+
+		Progress(int maxDepth, Listener listener) {
+			this.bound = maxDepth;
+			this.listener = listener;
+		}
+
+		@Override
+		public int bound() {
+			return bound;
+		}
+
+		@Override
+		public int found(int[] ax, int[] po, int length, int depthPhase1) {
+			byte[] moves = new byte[length];
+			for (int i = 0; i < length; i++)
+				moves[i] = (byte) (3 * ax[i] + po[i] - 1);
+			best = new Solution(moves, depthPhase1, search.getNodeCount(), System.nanoTime() - tStart);
+			bound = length - 1;
+			if (listener != null)
+				listener.onSolution(best);
+			return bound();
+		}
+	}
+}
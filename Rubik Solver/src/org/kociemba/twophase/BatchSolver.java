@@ -0,0 +1,149 @@
+package org.kociemba.twophase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Solves batches of cubes on a fixed pool of worker threads.
+ * <p>
+ * Every worker owns one {@link Search} context and pulls the next cube index from a shared counter, so long and short
+ * solves balance out between the workers. All workers share the read-only tables in {@link CoordCube}, so a worker
+ * adds no table memory. How the throughput scales with the number of workers depends on the machine; BatchBenchmark
+ * in bench/ measures it.
+ * <p>
+ * The pruning tables must have been loaded with {@link PruneTableLoader} before the first batch is solved.
+ */
+public class BatchSolver {
+
+	private final int threads;
+	private final ExecutorService pool;
+
+	private long lastBatchNanos; // wall clock time of the last batch
+	private int lastBatchSize;
+
+	/**
+	 * Creates a batch solver with one worker per available processor.
+	 */
+	public BatchSolver() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a batch solver with the given number of worker threads.
+	 */
+	public BatchSolver(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		this.threads = threads;
+		this.pool = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Solves all cubes of a batch.
+	 *
+	 * @param facelets
+	 *          the cube definition strings, see {@link Facelet} for the format.
+	 * @param maxDepth
+	 *          the maximal allowed maneuver length, see {@link Search#solution(String, int, long, boolean)}.
+	 * @param timeOut
+	 *          the maximum computing time for each single cube in seconds.
+	 * @param useSeparator
+	 *          determines if a " . " separates the phase1 and phase2 parts of the solver strings.
+	 * @return the solver strings or error codes of {@link Search#solution(String, int, long, boolean)}, in the
+	 *         iteration order of <code>facelets</code>.
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the workers.
+	 */
+	public List<String> solve(Iterable<String> facelets, int maxDepth, long timeOut, boolean useSeparator)
+			throws InterruptedException {
+		List<Solution> solutions = solve(facelets, maxDepth, timeOut);
+		String[] output = new String[solutions.size()];
+		for (int i = 0; i < output.length; i++)
+			output[i] = solutions.get(i).toString(useSeparator);
+		return Collections.unmodifiableList(Arrays.asList(output));
+	}
+
+	/**
+	 * Solves all cubes of a batch without generating solver strings.
+	 *
+	 * @return the solutions, in the iteration order of <code>facelets</code>. The other parameters are the same as for
+	 *         {@link #solve(Iterable, int, long, boolean)}.
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the workers.
+	 */
+	public List<Solution> solve(Iterable<String> facelets, final int maxDepth, final long timeOut)
+			throws InterruptedException {
+		final List<String> input = new ArrayList<String>();
+		for (String s : facelets)
+			input.add(s);
+		final Solution[] output = new Solution[input.size()];
+		final AtomicInteger next = new AtomicInteger();
+
+		long tStart = System.nanoTime();
+		List<Future<Void>> workers = new ArrayList<Future<Void>>(threads);
+		for (int w = 0; w < Math.min(threads, input.size()); w++) {
+			workers.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					Search search = new Search();
+					int i;
+					while ((i = next.getAndIncrement()) < output.length)
+						output[i] = search.solve(input.get(i), maxDepth, timeOut);
+					return null;
+				}
+			}));
+		}
+		try {
+			for (Future<Void> f : workers)
+				f.get();
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Solver worker failed", e.getCause());
+		} finally {
+			for (Future<Void> f : workers)
+				f.cancel(true);
+		}
+
+		synchronized (this) {
+			lastBatchNanos = System.nanoTime() - tStart;
+			lastBatchSize = output.length;
+		}
+		return Collections.unmodifiableList(Arrays.asList(output));
+	}
+
+	/**
+	 * @return the throughput of the last completed batch in solves per second, or 0 if no batch was solved yet.
+	 */
+	public synchronized double getSolvesPerSecond() {
+		return lastBatchNanos == 0 ? 0 : lastBatchSize * 1e9 / lastBatchNanos;
+	}
+
+	/**
+	 * @return the wall clock time of the last completed batch in nanoseconds.
+	 */
+	public synchronized long getLastBatchNanos() {
+		return lastBatchNanos;
+	}
+
+	/**
+	 * @return the number of worker threads.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Stops the worker threads. The solver cannot be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+}
@@ -1,5 +1,9 @@
 package org.kociemba.twophase;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
 import org.kociemba.twophase.CubieCube;
 
 //+++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
@@ -47,53 +51,185 @@ public class CoordCube {
 	// A move on the coordinate level
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void move(int m) {
-		twist = twistMove[twist][m];
-		flip = flipMove[flip][m];
-		parity = parityMove[parity][m];
-		FRtoBR = FRtoBR_Move[FRtoBR][m];
-		URFtoDLF = URFtoDLF_Move[URFtoDLF][m];
-		URtoUL = URtoUL_Move[URtoUL][m];
-		UBtoDF = UBtoDF_Move[UBtoDF][m];
+		twist = twistMove.get(N_MOVE * twist + m);
+		flip = flipMove.get(N_MOVE * flip + m);
+		parity = parityMove[N_MOVE * parity + m];
+		FRtoBR = FRtoBR_Move.get(N_MOVE * FRtoBR + m);
+		URFtoDLF = URFtoDLF_Move.get(N_MOVE * URFtoDLF + m);
+		URtoUL = URtoUL_Move.get(N_MOVE * URtoUL + m);
+		UBtoDF = UBtoDF_Move.get(N_MOVE * UBtoDF + m);
 		if (URtoUL < 336 && UBtoDF < 336)// updated only if UR,UF,UL,UB,DR,DF
 			// are not in UD-slice
-			URtoDF = MergeURtoULandUBtoDF[URtoUL][UBtoDF];
+			URtoDF = MergeURtoULandUBtoDF.get(336 * URtoUL + UBtoDF);
 	}
 	
 	/* all empty pruning tables; must be loaded with {@link PruneTableLoader} first before using the solver */
-	static short[][] twistMove;
-	static short[][] flipMove;
-	static short[][] FRtoBR_Move;
-	static short[][] URFtoDLF_Move;
-	static short[][] URtoDF_Move;
-	static short[][] URtoUL_Move;
-	static short[][] UBtoDF_Move;
-	static short[][] MergeURtoULandUBtoDF;
-	static byte[] Slice_URFtoDLF_Parity_Prun;
-	static byte[] Slice_URtoDF_Parity_Prun;
-	static byte[] Slice_Twist_Prun;
-	static byte[] Slice_Flip_Prun;
+	/* each move table is one contiguous buffer with N_MOVE entries per coordinate: table[N_MOVE * coordinate + move] */
+	/* all tables are direct buffers outside of the Java heap, see TableStore */
+	static ShortBuffer twistMove;
+	static ShortBuffer flipMove;
+	static ShortBuffer FRtoBR_Move;
+	static ShortBuffer URFtoDLF_Move;
+	static ShortBuffer URtoDF_Move;
+	static ShortBuffer URtoUL_Move;
+	static ShortBuffer UBtoDF_Move;
+	static ShortBuffer MergeURtoULandUBtoDF; // MergeURtoULandUBtoDF[336 * URtoUL + UBtoDF]
+	static ByteBuffer Slice_URFtoDLF_Parity_Prun;
+	static ByteBuffer Slice_URtoDF_Parity_Prun;
+	static ByteBuffer Slice_Twist_Prun;
+	static ByteBuffer Slice_Flip_Prun;
+	
+	/* the depth up to which each of the four tables above has been filled, or -1 if it does not exist yet. A table is
+	 * published while it is generated: an entry that is still empty (0x0f) has a distance of at least the fill depth + 1,
+	 * so the partially filled table is still a lower bound. The table is assigned before its fill depth, so whoever reads
+	 * the fill depth first also sees the table. */
+	static volatile int Slice_URFtoDLF_Parity_Fill = -1;
+	static volatile int Slice_URtoDF_Parity_Fill = -1;
+	static volatile int Slice_Twist_Fill = -1;
+	static volatile int Slice_Flip_Fill = -1;
+	static final int FILLED = 0x0f; // the fill depth of a complete table
+	
+	/* the phase 2 pruning tables with two bits per entry, the distance modulo 3, if they were generated with
+	 * {@link PruneTableLoader.Phase2Encoding#MOD3}; then the two phase 2 tables above are null */
+	static IntBuffer Slice_URFtoDLF_Parity_Prun3; // entry (N_SLICE2 * URFtoDLF + FRtoBR) * 2 + parity]
+	static IntBuffer Slice_URtoDF_Parity_Prun3; // Slice_URtoDF_Parity_Prun3[(N_SLICE2 * URtoDF + FRtoBR) * 2 + parity]
+	
+	/* optional symmetry reduced phase 1 pruning table, see Symmetry; must be loaded with
+	 * {@link PruneTableLoader#loadSymmetryTables(int)} before it is used */
+	/* two bits per entry: the phase 1 distance modulo 3 of FlipSlice_Twist_Prun[N_TWIST * flipslice class + twist] */
+	static IntBuffer FlipSlice_Twist_Prun;
+	
+	/* optional pattern databases of OptimalSearch with two entries per byte; must be loaded
+	 * with {@link PruneTableLoader#loadPatternDatabases(int)} before they are used */
+	static ByteBuffer Corner_Prun; // Corner_Prun[N_TWIST * (2 * URFtoDLF + parity) + twist]: all 8 corners
+	static ByteBuffer FRtoBR_Flip_Prun; // FRtoBR_Flip_Prun[N_FLIP * FRtoBR + flip]
+	static ByteBuffer URtoUL_UBtoDF_Prun; // URtoUL_UBtoDF_Prun[N_UBtoDF * URtoUL + UBtoDF]: the U and D edges
+	
+	static final int N_CORNER_PRUN = N_TWIST * N_PARITY * N_URFtoDLF;
+	static final int N_FRtoBR_FLIP_PRUN = N_FLIP * N_FRtoBR;
+	static final int N_URtoUL_UBtoDF_PRUN = N_URtoUL * N_UBtoDF;
 	
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Parity of the corner permutation. This is the same as the parity for the edge permutation of a valid cube.
 	// parity has values 0 and 1
-	static short[][] parityMove = { { 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1 },
-		{ 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0 } };
+	static short[] parityMove = { 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1,
+		0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0 };
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Set pruning value in table. Two values are stored in one byte.
-	static void setPruning(byte[] table, int index, byte value) {
+	static void setPruning(ByteBuffer table, int index, byte value) {
+		int i = index >>> 1;
 		if ((index & 1) == 0)
-			table[index / 2] &= 0xf0 | value;
+			table.put(i, (byte) (table.get(i) & (0xf0 | value)));
 		else
-			table[index / 2] &= 0x0f | (value << 4);
+			table.put(i, (byte) (table.get(i) & (0x0f | (value << 4))));
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	// Extract pruning value
-	static byte getPruning(byte[] table, int index) {
-		if ((index & 1) == 0)
-			return (byte) (table[index / 2] & 0x0f);
-		else
-			return (byte) ((table[index / 2] & 0xf0) >>> 4);
+	// Extract pruning value. The nibble is selected by a shift, not a branch, which the search cannot predict.
+	static int getPruning(ByteBuffer table, int index) {
+		return (table.get(index >>> 1) >> ((index & 1) << 2)) & 0x0f;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Extract pruning value from a table filled up to depth fill. An empty entry is at least fill + 1 moves away.
+	static int getPruning(ByteBuffer table, int index, int fill) {
+		return Math.min(getPruning(table, index), fill + 1);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Set pruning value modulo 3 in table. Sixteen values are stored in one int, the value 3 marks an empty entry.
+	static void setPruning3(IntBuffer table, int index, int value) {
+		int i = index >>> 4;
+		table.put(i, table.get(i) & ~((3 ^ value) << ((index & 15) << 1)));
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Extract pruning value modulo 3
+	static int getPruning3(IntBuffer table, int index) {
+		return (table.get(index >>> 4) >>> ((index & 15) << 1)) & 3;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Index into FlipSlice_Twist_Prun: the flipslice coordinate is reduced to its class and the twist is conjugated with
+	// the same symmetry.
+	static int flipSliceTwistIndex(int flip, int slice, int twist) {
+		int flipslice = N_FLIP * slice + flip;
+		return N_TWIST * Symmetry.flipSliceClassIdx[flipslice]
+				+ Symmetry.twistConj[Symmetry.N_SYM * twist + Symmetry.flipSliceSym[flipslice]];
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The distance of a cube after one move differs by at most one from the distance before the move, so its value
+	// modulo 3 determines it: nextDepth[3 * depth + depth after the move modulo 3]
+	private static final byte[] nextDepth = new byte[3 * 32];
+	static {
+		for (int depth = 0; depth < 32; depth++)
+			for (int mod3 = 0; mod3 < 3; mod3++)
+				nextDepth[3 * depth + mod3] = (byte) (depth + (mod3 - depth % 3 + 4) % 3 - 1);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The exact phase 1 distance of the cube reached by one move from a cube with phase 1 distance depth
+	static int getFlipSliceTwistDepth(int depth, int flip, int slice, int twist) {
+		return nextDepth[3 * depth + getPruning3(FlipSlice_Twist_Prun, flipSliceTwistIndex(flip, slice, twist))];
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The exact phase 1 distance of a cube. Follows moves which reduce the distance until the phase 1 goal is reached.
+	static int getFlipSliceTwistDepth(int flip, int slice, int twist) {
+		int depth = 0;
+		int mod3 = getPruning3(FlipSlice_Twist_Prun, flipSliceTwistIndex(flip, slice, twist));
+		while (flip != 0 || slice != 0 || twist != 0) {
+			int closer = (mod3 + 2) % 3;
+			for (int mv = 0; mv < N_MOVE; mv++) {
+				int flip1 = flipMove.get(N_MOVE * flip + mv);
+				int slice1 = FRtoBR_Move.get(N_MOVE * 24 * slice + mv) / 24;
+				int twist1 = twistMove.get(N_MOVE * twist + mv);
+				if (getPruning3(FlipSlice_Twist_Prun, flipSliceTwistIndex(flip1, slice1, twist1)) == closer) {
+					flip = flip1;
+					slice = slice1;
+					twist = twist1;
+					mod3 = closer;
+					depth++;
+					break;
+				}
+			}
+		}
+		return depth;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The exact distance in a phase 2 table modulo 3 of the cube reached by one move from a cube with distance depth
+	static int getPhase2Depth(int depth, IntBuffer table, int index) {
+		return nextDepth[3 * depth + getPruning3(table, index)];
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The exact distance of a phase 2 cube in Slice_URFtoDLF_Parity_Prun3 (permMove is URFtoDLF_Move) or in
+	// Slice_URtoDF_Parity_Prun3 (permMove is URtoDF_Move). Follows phase 2 moves which reduce the distance until the
+	// solved cube is reached, but returns limit + 1 as soon as the distance turns out to be larger than limit.
+	static int getPhase2Depth(IntBuffer table, ShortBuffer permMove, int perm, int slice, int parity, int limit) {
+		int depth = 0;
+		int mod3 = getPruning3(table, (N_SLICE2 * perm + slice) * 2 + parity);
+		while (perm != 0 || slice != 0 || parity != 0) {
+			if (depth == limit)
+				return limit + 1;
+			int closer = (mod3 + 2) % 3;
+			for (int mv : PruneTableBuilder.PHASE2_MOVES) {
+				int perm1 = permMove.get(N_MOVE * perm + mv);
+				int slice1 = FRtoBR_Move.get(N_MOVE * slice + mv);
+				int parity1 = parityMove[N_MOVE * parity + mv];
+				if (getPruning3(table, (N_SLICE2 * perm1 + slice1) * 2 + parity1) == closer) {
+					perm = perm1;
+					slice = slice1;
+					parity = parity1;
+					mod3 = closer;
+					depth++;
+					break;
+				}
+			}
+		}
+		return depth;
 	}
 }
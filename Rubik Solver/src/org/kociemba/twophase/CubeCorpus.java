@@ -0,0 +1,417 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * A seeded corpus of cubes for benchmarks and tests: uniformly random cubes, random move scrambles of a given length or
+ * cubes exactly a given number of moves away from the solved cube.
+ * <p>
+ * Cube i of a corpus depends only on the seed and on i: it is generated from its own SplitMix64 stream, which starts at
+ * the i-th output of a SplitMix64 generator seeded with the seed. The same corpus therefore comes out on every machine,
+ * with any number of threads, and any cube of it can be generated on its own with {@link #get(long)}.
+ * <p>
+ * A random cube is drawn directly: both permutations by a Fisher-Yates shuffle, where an edge permutation of the wrong
+ * parity gets its last two edges exchanged, and twist and flip as random coordinates. Every cube has the same
+ * probability and no draw is ever rejected. The cubes are generated on the cubie level with byte arrays and written as
+ * facelets without going through {@link FaceCube}.
+ * <p>
+ * {@link #write(File, Format, long, int)} generates blocks of cubes in parallel and writes them in order through a
+ * {@link FileChannel}, either as facelet text or as packed binary records of {@link #RECORD_SIZE} bytes: the big endian
+ * int N_TWIST * URFtoDLB + twist followed by the big endian long N_FLIP * URtoBR + flip. {@link #toFacelets(int, long)}
+ * turns a record back into a cube definition string.
+ */
+public class CubeCorpus {
+
+	/**
+	 * The output formats of {@link CubeCorpus#write(File, Format, long, int)}.
+	 */
+	public enum Format {
+		/** One cube definition string of 54 characters per line, see {@link Facelet} */
+		FACELETS,
+		/** {@link CubeCorpus#RECORD_SIZE} bytes per cube, see {@link CubeCorpus} */
+		BINARY
+	}
+
+	/** The size of a binary record in bytes */
+	public static final int RECORD_SIZE = 12;
+
+	private static final int RANDOM = -1; // length of a corpus of random cubes
+	private static final int BLOCK = 4096; // cubes per block of write()
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // the increment of SplitMix64
+	private static final long DISTANCE_TIME_OUT = 3600; // seconds for the optimal solve of a cube in a distance corpus
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The 18 moves 3 * axis + power - 1 on the cubie level: permutation and orientation change of corners and edges.
+	private static final byte[][] moveCp = new byte[CoordCube.N_MOVE][8];
+	private static final byte[][] moveCo = new byte[CoordCube.N_MOVE][8];
+	private static final byte[][] moveEp = new byte[CoordCube.N_MOVE][12];
+	private static final byte[][] moveEo = new byte[CoordCube.N_MOVE][12];
+
+	// The facelet positions of every corner and edge position and the colors of every cubie as characters.
+	private static final byte[][] cornerFacelet = new byte[8][3];
+	private static final byte[][] cornerColor = new byte[8][3];
+	private static final byte[][] edgeFacelet = new byte[12][2];
+	private static final byte[][] edgeColor = new byte[12][2];
+
+	static {
+		for (int axis = 0; axis < 6; axis++) {
+			CubieCube c = new CubieCube();
+			for (int power = 0; power < 3; power++) {
+				c.cornerMultiply(CubieCube.moveCube[axis]);
+				c.edgeMultiply(CubieCube.moveCube[axis]);
+				int mv = 3 * axis + power;
+				for (int i = 0; i < 8; i++) {
+					moveCp[mv][i] = c.cp[i];
+					moveCo[mv][i] = c.co[i];
+				}
+				for (int i = 0; i < 12; i++) {
+					moveEp[mv][i] = c.ep[i];
+					moveEo[mv][i] = c.eo[i];
+				}
+			}
+		}
+		for (int i = 0; i < 8; i++)
+			for (int n = 0; n < 3; n++) {
+				cornerFacelet[i][n] = (byte) FaceCube.cornerFacelet[i][n].ordinal();
+				cornerColor[i][n] = (byte) FaceCube.cornerColor[i][n].name().charAt(0);
+			}
+		for (int i = 0; i < 12; i++)
+			for (int n = 0; n < 2; n++) {
+				edgeFacelet[i][n] = (byte) FaceCube.edgeFacelet[i][n].ordinal();
+				edgeColor[i][n] = (byte) FaceCube.edgeColor[i][n].name().charAt(0);
+			}
+	}
+
+	private final long seed;
+	private final int length; // RANDOM, or the number of moves of a scramble
+	private final boolean exact; // the cubes are exactly length moves away from the solved cube
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private CubeCorpus(long seed, int length, boolean exact) {
+		if (length < RANDOM || length > 20 && exact)
+			throw new IllegalArgumentException("Invalid length: " + length);
+		this.seed = seed;
+		this.length = length;
+		this.exact = exact;
+	}
+
+	/**
+	 * @return a corpus of uniformly random cubes
+	 */
+	public static CubeCorpus random(long seed) {
+		return new CubeCorpus(seed, RANDOM, false);
+	}
+
+	/**
+	 * @return a corpus of cubes scrambled by length random moves; no two moves in a row turn the same face, and two moves
+	 *         of opposite faces in a row always turn U, R or F first
+	 */
+	public static CubeCorpus scrambles(long seed, int length) {
+		return new CubeCorpus(seed, length, false);
+	}
+
+	/**
+	 * Returns a corpus of cubes whose shortest solutions have exactly the given number of moves. They are scrambles like
+	 * those of {@link #scrambles(long, int)} that {@link OptimalSearch} cannot solve with fewer moves; other scrambles
+	 * are drawn again. A cube with several shortest scrambles is therefore more likely than others. Generating the
+	 * cubes requires the tables of {@link OptimalSearch}; every further move makes it about three times slower, at 14
+	 * moves a cube takes seconds.
+	 */
+	public static CubeCorpus distance(long seed, int distance) {
+		return new CubeCorpus(seed, distance, true);
+	}
+
+	/**
+	 * @return cube number index of the corpus as cube definition string, see {@link Facelet}
+	 * @throws IllegalStateException
+	 *           for a corpus of {@link #distance(long, int)} if the tables of {@link OptimalSearch} have not been loaded
+	 */
+	public String get(long index) {
+		Generator g = new Generator();
+		g.generate(index);
+		ByteBuffer buf = ByteBuffer.allocate(55);
+		g.putFacelets(buf);
+		return new String(buf.array(), 0, 54);
+	}
+
+	/**
+	 * Writes the cubes 0 to count - 1 of the corpus to a file. Blocks of cubes are generated by the given number of
+	 * threads and written in order, so the file does not depend on the number of threads.
+	 *
+	 * @param file
+	 *          the corpus file; an existing file is replaced
+	 * @throws IOException
+	 *           if the file cannot be written
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for a block
+	 * @throws IllegalStateException
+	 *           for a corpus of {@link #distance(long, int)} if the tables of {@link OptimalSearch} have not been loaded
+	 */
+	public void write(File file, final Format format, final long count, int threads) throws IOException,
+			InterruptedException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			FileChannel channel = raf.getChannel();
+			channel.truncate(0);
+			final ThreadLocal<Generator> generators = new ThreadLocal<Generator>() {
+				@Override
+				protected Generator initialValue() {
+					return new Generator();
+				}
+			};
+
+			// at most two blocks per thread are in flight, so the memory does not grow with the size of the corpus
+			Queue<Future<ByteBuffer>> blocks = new ArrayDeque<Future<ByteBuffer>>();
+			long next = 0;
+			while (next < count || !blocks.isEmpty()) {
+				while (next < count && blocks.size() < 2 * threads) {
+					final long first = next;
+					next = Math.min(count, next + BLOCK);
+					final int n = (int) (next - first);
+					blocks.add(pool.submit(new Callable<ByteBuffer>() {
+						@Override
+						public ByteBuffer call() {
+							Generator g = generators.get();
+							ByteBuffer buf = ByteBuffer.allocate(n * (format == Format.BINARY ? RECORD_SIZE : 55));
+							for (long i = first; i < first + n; i++) {
+								g.generate(i);
+								if (format == Format.BINARY)
+									g.putRecord(buf);
+								else
+									g.putFacelets(buf);
+							}
+							buf.flip();
+							return buf;
+						}
+					}));
+				}
+				ByteBuffer buf;
+				try {
+					buf = blocks.remove().get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					throw new RuntimeException("Generator failed", e.getCause());
+				}
+				while (buf.hasRemaining())
+					channel.write(buf);
+			}
+		} finally {
+			pool.shutdownNow();
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return the cube definition string of a binary record, see {@link Format#BINARY}
+	 */
+	public static String toFacelets(int corners, long edges) {
+		CubieCube cc = new CubieCube();
+		cc.setURFtoDLB(corners / CoordCube.N_TWIST);
+		cc.setTwist((short) (corners % CoordCube.N_TWIST));
+		cc.setURtoBR((int) (edges / CoordCube.N_FLIP));
+		cc.setFlip((short) (edges % CoordCube.N_FLIP));
+		return cc.toFaceCube().to_String();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The SplitMix64 finalizer: a bijection on 64 bit values with good avalanche.
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Generates cubes of the corpus on the cubie level, one thread per generator.
+	private class Generator {
+		final byte[] cp = new byte[8];
+		final byte[] co = new byte[8];
+		final byte[] ep = new byte[12];
+		final byte[] eo = new byte[12];
+		final byte[] tmp = new byte[12];
+		final byte[] facelets = new byte[55];
+		final OptimalSearch optimal = exact ? new OptimalSearch() : null;
+		long state; // of the SplitMix64 stream of the current cube
+
+		// Set the arrays to cube number index.
+		void generate(long index) {
+			state = mix(seed + (index + 1) * GOLDEN_GAMMA);
+			if (length == RANDOM) {
+				randomCube();
+				return;
+			}
+			do
+				scramble();
+			while (exact && !isOptimal());
+		}
+
+		// A uniformly random cube.
+		void randomCube() {
+			shuffle(cp);
+			shuffle(ep);
+			if (parity(cp) != parity(ep)) {
+				byte e = ep[10];
+				ep[10] = ep[11];
+				ep[11] = e;
+			}
+			int twist = nextInt(CoordCube.N_TWIST), sum = 0;
+			for (int i = 6; i >= 0; i--) {
+				sum += co[i] = (byte) (twist % 3);
+				twist /= 3;
+			}
+			co[7] = (byte) ((3 - sum % 3) % 3);
+			int flip = nextInt(CoordCube.N_FLIP);
+			sum = 0;
+			for (int i = 10; i >= 0; i--) {
+				sum += eo[i] = (byte) (flip & 1);
+				flip >>= 1;
+			}
+			eo[11] = (byte) (sum & 1);
+		}
+
+		// length random moves from the solved cube, in the order of the moves of OptimalSearch.
+		void scramble() {
+			for (int i = 0; i < 12; i++) {
+				ep[i] = (byte) i;
+				eo[i] = 0;
+			}
+			for (int i = 0; i < 8; i++) {
+				cp[i] = (byte) i;
+				co[i] = 0;
+			}
+			int last = -1;
+			for (int n = 0; n < length; n++) {
+				int axis;
+				do
+					axis = nextInt(6);
+				while (axis == last || axis == last - 3);
+				last = axis;
+				move(3 * axis + nextInt(3));
+			}
+		}
+
+		// Apply move mv = 3 * axis + power - 1.
+		void move(int mv) {
+			byte[] mcp = moveCp[mv], mco = moveCo[mv], mep = moveEp[mv], meo = moveEo[mv];
+			for (int i = 0; i < 8; i++)
+				tmp[i] = (byte) (co[mcp[i]] + mco[i]);
+			for (int i = 0; i < 8; i++)
+				co[i] = (byte) (tmp[i] % 3);
+			for (int i = 0; i < 8; i++)
+				tmp[i] = cp[mcp[i]];
+			System.arraycopy(tmp, 0, cp, 0, 8);
+			for (int i = 0; i < 12; i++)
+				tmp[i] = (byte) (eo[mep[i]] ^ meo[i]);
+			System.arraycopy(tmp, 0, eo, 0, 12);
+			for (int i = 0; i < 12; i++)
+				tmp[i] = ep[mep[i]];
+			System.arraycopy(tmp, 0, ep, 0, 12);
+		}
+
+		// The cube cannot be solved with fewer than length moves.
+		boolean isOptimal() {
+			ByteBuffer buf = ByteBuffer.wrap(facelets);
+			putFacelets(buf);
+			Solution s = optimal.solveUntil(new String(facelets, 0, 54),
+					System.nanoTime() + TimeUnit.SECONDS.toNanos(DISTANCE_TIME_OUT), null);
+			switch (s.getStatus()) {
+			case SOLVED:
+				return s.length() == length;
+			case TIMEOUT:
+			case CANCELLED:
+				throw new IllegalStateException("No optimal solution for a scramble: " + s.getStatus());
+			default:
+				// A scramble of the solved cube is always solvable.
+				throw new IllegalStateException("Scramble is not a solvable cube: " + s.getStatus());
+			}
+		}
+
+		// Put the cube definition string and a line feed into buf.
+		void putFacelets(ByteBuffer buf) {
+			byte[] f = facelets;
+			for (int i = 0; i < 6; i++)
+				f[9 * i + 4] = (byte) "URFDLB".charAt(i);
+			for (int i = 0; i < 8; i++)
+				for (int n = 0; n < 3; n++)
+					f[cornerFacelet[i][(n + co[i]) % 3]] = cornerColor[cp[i]][n];
+			for (int i = 0; i < 12; i++)
+				for (int n = 0; n < 2; n++)
+					f[edgeFacelet[i][(n + eo[i]) % 2]] = edgeColor[ep[i]][n];
+			f[54] = '\n';
+			buf.put(f);
+		}
+
+		// Put the binary record into buf.
+		void putRecord(ByteBuffer buf) {
+			int twist = 0, flip = 0;
+			for (int i = 0; i < 7; i++)
+				twist = 3 * twist + co[i];
+			for (int i = 0; i < 11; i++)
+				flip = 2 * flip + eo[i];
+			buf.putInt(CoordCube.N_TWIST * rank(cp, 8) + twist);
+			buf.putLong((long) CoordCube.N_FLIP * rank(ep, 12) + flip);
+		}
+
+		// The index of a permutation as computed by CubieCube.getURFtoDLB() and CubieCube.getURtoBR().
+		int rank(byte[] p, int n) {
+			byte[] perm = tmp;
+			System.arraycopy(p, 0, perm, 0, n);
+			int b = 0;
+			for (int j = n - 1; j > 0; j--) {
+				int k = 0;
+				while (perm[j] != j) {
+					byte first = perm[0];
+					System.arraycopy(perm, 1, perm, 0, j);
+					perm[j] = first;
+					k++;
+				}
+				b = (j + 1) * b + k;
+			}
+			return b;
+		}
+
+		// A random permutation of 0 to p.length - 1.
+		void shuffle(byte[] p) {
+			for (int i = 0; i < p.length; i++) {
+				int j = nextInt(i + 1);
+				p[i] = p[j];
+				p[j] = (byte) i;
+			}
+		}
+
+		// 0 for an even permutation, 1 for an odd one.
+		int parity(byte[] p) {
+			int s = 0;
+			for (int i = 1; i < p.length; i++)
+				for (int j = 0; j < i; j++)
+					if (p[j] > p[i])
+						s++;
+			return s & 1;
+		}
+
+		// A uniformly distributed int from 0 to bound - 1, rejecting like java.util.Random.nextInt(int).
+		int nextInt(int bound) {
+			int bits, val;
+			do {
+				bits = (int) (mix(state += GOLDEN_GAMMA) >>> 33);
+				val = bits % bound;
+			} while (bits - val + (bound - 1) < 0);
+			return val;
+		}
+	}
+}
@@ -5,52 +5,69 @@ import static org.kociemba.twophase.Edge.*;
 
 //++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 //Cube on the cubie level
+//The permutations hold the ordinals of Corner and Edge, so moves and coordinates only work on primitive arrays. The
+//multiplications and the coordinates use a scratch array of the cube instead of allocating; a CubieCube must therefore
+//not be used by several threads at once. The cube b of a multiplication is only read.
 class CubieCube {
 
 	// initialize to Id-Cube
 
-	// corner permutation
-	Corner[] cp = { URF, UFL, ULB, UBR, DFR, DLF, DBL, DRB };
+	// corner permutation: the corner cubie at each corner position
+	byte[] cp = { 0, 1, 2, 3, 4, 5, 6, 7 };
 
 	// corner orientation
 	byte[] co = { 0, 0, 0, 0, 0, 0, 0, 0 };
 
-	// edge permutation
-	Edge[] ep = { UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR };
+	// edge permutation: the edge cubie at each edge position
+	byte[] ep = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
 
 	// edge orientation
 	byte[] eo = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
+	// scratch space of the multiplications and the coordinates
+	private final byte[] tmp = new byte[12];
+
+	// binomial coefficients: CNK[n][k] is n choose k for n < 12, 0 for k > n
+	private static final int[][] CNK = new int[12][13];
+
+	static {
+		for (int n = 0; n < 12; n++) {
+			CNK[n][0] = 1;
+			for (int k = 1; k <= n; k++)
+				CNK[n][k] = CNK[n - 1][k - 1] + CNK[n - 1][k];
+		}
+	}
+
 	// ************************************** Moves on the cubie level ***************************************************
 
-	private static Corner[] cpU = { UBR, URF, UFL, ULB, DFR, DLF, DBL, DRB };
+	private static byte[] cpU = corners(UBR, URF, UFL, ULB, DFR, DLF, DBL, DRB);
 	private static byte[] coU = { 0, 0, 0, 0, 0, 0, 0, 0 };
-	private static Edge[] epU = { UB, UR, UF, UL, DR, DF, DL, DB, FR, FL, BL, BR };
+	private static byte[] epU = edges(UB, UR, UF, UL, DR, DF, DL, DB, FR, FL, BL, BR);
 	private static byte[] eoU = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
-	private static Corner[] cpR = { DFR, UFL, ULB, URF, DRB, DLF, DBL, UBR };
+	private static byte[] cpR = corners(DFR, UFL, ULB, URF, DRB, DLF, DBL, UBR);
 	private static byte[] coR = { 2, 0, 0, 1, 1, 0, 0, 2 };
-	private static Edge[] epR = { FR, UF, UL, UB, BR, DF, DL, DB, DR, FL, BL, UR };
+	private static byte[] epR = edges(FR, UF, UL, UB, BR, DF, DL, DB, DR, FL, BL, UR);
 	private static byte[] eoR = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
-	private static Corner[] cpF = { UFL, DLF, ULB, UBR, URF, DFR, DBL, DRB };
+	private static byte[] cpF = corners(UFL, DLF, ULB, UBR, URF, DFR, DBL, DRB);
 	private static byte[] coF = { 1, 2, 0, 0, 2, 1, 0, 0 };
-	private static Edge[] epF = { UR, FL, UL, UB, DR, FR, DL, DB, UF, DF, BL, BR };
+	private static byte[] epF = edges(UR, FL, UL, UB, DR, FR, DL, DB, UF, DF, BL, BR);
 	private static byte[] eoF = { 0, 1, 0, 0, 0, 1, 0, 0, 1, 1, 0, 0 };
 
-	private static Corner[] cpD = { URF, UFL, ULB, UBR, DLF, DBL, DRB, DFR };
+	private static byte[] cpD = corners(URF, UFL, ULB, UBR, DLF, DBL, DRB, DFR);
 	private static byte[] coD = { 0, 0, 0, 0, 0, 0, 0, 0 };
-	private static Edge[] epD = { UR, UF, UL, UB, DF, DL, DB, DR, FR, FL, BL, BR };
+	private static byte[] epD = edges(UR, UF, UL, UB, DF, DL, DB, DR, FR, FL, BL, BR);
 	private static byte[] eoD = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
-	private static Corner[] cpL = { URF, ULB, DBL, UBR, DFR, UFL, DLF, DRB };
+	private static byte[] cpL = corners(URF, ULB, DBL, UBR, DFR, UFL, DLF, DRB);
 	private static byte[] coL = { 0, 1, 2, 0, 0, 2, 1, 0 };
-	private static Edge[] epL = { UR, UF, BL, UB, DR, DF, FL, DB, FR, UL, DL, BR };
+	private static byte[] epL = edges(UR, UF, BL, UB, DR, DF, FL, DB, FR, UL, DL, BR);
 	private static byte[] eoL = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
-	private static Corner[] cpB = { URF, UFL, UBR, DRB, DFR, DLF, ULB, DBL };
+	private static byte[] cpB = corners(URF, UFL, UBR, DRB, DFR, DLF, ULB, DBL);
 	private static byte[] coB = { 0, 0, 1, 2, 0, 0, 2, 1 };
-	private static Edge[] epB = { UR, UF, UL, BR, DR, DF, DL, BL, FR, FL, UB, DB };
+	private static byte[] epB = edges(UR, UF, UL, BR, DR, DF, DL, BL, FR, FL, UB, DB);
 	private static byte[] eoB = { 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 1, 1 };
 
 	// this CubieCube array represents the 6 basic cube moves
@@ -100,88 +117,88 @@ class CubieCube {
 	};
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	CubieCube(Corner[] cp, byte[] co, Edge[] ep, byte[] eo) {
+	CubieCube(byte[] cp, byte[] co, byte[] ep, byte[] eo) {
 		this();
-		for (int i = 0; i < 8; i++) {
-			this.cp[i] = cp[i];
-			this.co[i] = co[i];
-		}
-		for (int i = 0; i < 12; i++) {
-			this.ep[i] = ep[i];
-			this.eo[i] = eo[i];
-		}
+		System.arraycopy(cp, 0, this.cp, 0, 8);
+		System.arraycopy(co, 0, this.co, 0, 8);
+		System.arraycopy(ep, 0, this.ep, 0, 12);
+		System.arraycopy(eo, 0, this.eo, 0, 12);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The ordinals of the given corners, for the definition of a corner permutation.
+	static byte[] corners(Corner... c) {
+		byte[] p = new byte[c.length];
+		for (int i = 0; i < c.length; i++)
+			p[i] = (byte) c[i].ordinal();
+		return p;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The ordinals of the given edges, for the definition of an edge permutation.
+	static byte[] edges(Edge... e) {
+		byte[] p = new byte[e.length];
+		for (int i = 0; i < e.length; i++)
+			p[i] = (byte) e[i].ordinal();
+		return p;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// n choose k
 	static int Cnk(int n, int k) {
-		int i, j, s;
-		if (n < k)
-			return 0;
-		if (k > n / 2)
-			k = n - k;
-		for (s = 1, i = n, j = 1; i != n - k; i--, j++) {
-			s *= i;
-			s /= j;
-		}
-		return s;
+		return CNK[n][k];
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	static void rotateLeft(Corner[] arr, int l, int r)
-	// Left rotation of all array elements between l and r
-	{
-		Corner temp = arr[l];
-		for (int i = l; i < r; i++)
-			arr[i] = arr[i + 1];
-		arr[r] = temp;
+	// Left rotation of the array elements 0 to r by k positions
+	static void rotateLeft(byte[] arr, int r, int k) {
+		if (k == 0)
+			return;
+		reverse(arr, 0, k - 1);
+		reverse(arr, k, r);
+		reverse(arr, 0, r);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	static void rotateRight(Corner[] arr, int l, int r)
-	// Right rotation of all array elements between l and r
-	{
-		Corner temp = arr[r];
-		for (int i = r; i > l; i--)
-			arr[i] = arr[i - 1];
-		arr[l] = temp;
+	// Right rotation of the array elements 0 to r by k positions
+	static void rotateRight(byte[] arr, int r, int k) {
+		rotateLeft(arr, r, k == 0 ? 0 : r + 1 - k);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	static void rotateLeft(Edge[] arr, int l, int r)
-	// Left rotation of all array elements between l and r
-	{
-		Edge temp = arr[l];
-		for (int i = l; i < r; i++)
-			arr[i] = arr[i + 1];
-		arr[r] = temp;
+	private static void reverse(byte[] arr, int l, int r) {
+		for (; l < r; l++, r--) {
+			byte temp = arr[l];
+			arr[l] = arr[r];
+			arr[r] = temp;
+		}
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	static void rotateRight(Edge[] arr, int l, int r)
-	// Right rotation of all array elements between l and r
-	{
-		Edge temp = arr[r];
-		for (int i = r; i > l; i--)
-			arr[i] = arr[i - 1];
-		arr[l] = temp;
+	// The digit of the permutation index for position r: the number of left rotations of the elements 0 to r that bring
+	// value to position r. The rotations are carried out.
+	private static int rotateToEnd(byte[] arr, int r, int value) {
+		int p = r;
+		while (arr[p] != value)
+			p--;
+		int k = p == r ? 0 : p + 1;
+		rotateLeft(arr, r, k);
+		return k;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// return cube in facelet representation
 	FaceCube toFaceCube() {
 		FaceCube fcRet = new FaceCube();
-		for (Corner c : Corner.values()) {
-			int i = c.ordinal();
-			int j = cp[i].ordinal();// cornercubie with index j is at
+		for (int i = 0; i < 8; i++) {
+			int j = cp[i];// cornercubie with index j is at
 			// cornerposition with index i
 			byte ori = co[i];// Orientation of this cubie
 			for (int n = 0; n < 3; n++)
 				fcRet.f[FaceCube.cornerFacelet[i][(n + ori) % 3].ordinal()] = FaceCube.cornerColor[j][n];
 		}
-		for (Edge e : Edge.values()) {
-			int i = e.ordinal();
-			int j = ep[i].ordinal();// edgecubie with index j is at edgeposition
+		for (int i = 0; i < 12; i++) {
+			int j = ep[i];// edgecubie with index j is at edgeposition
 			// with index i
 			byte ori = eo[i];// Orientation of this cubie
 			for (int n = 0; n < 2; n++)
@@ -198,26 +215,22 @@ class CubieCube {
 	// be computed by addition modulo three in the cyclic group C3 any more. Instead the rules below give an addition in
 	// the dihedral group D3 with 6 elements.<br>
 	//	 
-	// NOTE: Because we do not use symmetry reductions and hence no mirrored cubes in this simple implementation of the
-	// Two-Phase-Algorithm, some code is not necessary here.
+	// NOTE: Mirrored cubes only occur in the symmetries of Symmetry, which reduce the optional flipslice and twist
+	// pruning table of phase 1.
 	//	
 	void cornerMultiply(CubieCube b) {
-		Corner[] cPerm = new Corner[8];
-		byte[] cOri = new byte[8];
-		for (Corner corn : Corner.values()) {
-			cPerm[corn.ordinal()] = cp[b.cp[corn.ordinal()].ordinal()];
-
-			byte oriA = co[b.cp[corn.ordinal()].ordinal()];
-			byte oriB = b.co[corn.ordinal()];
+		byte[] bcp = b.cp, bco = b.co;
+		for (int corn = 0; corn < 8; corn++) {
+			byte oriA = co[bcp[corn]];
+			byte oriB = bco[corn];
 			byte ori = 0;
-			;
 			if (oriA < 3 && oriB < 3) // if both cubes are regular cubes...
 			{
 				ori = (byte) (oriA + oriB); // just do an addition modulo 3 here
 				if (ori >= 3)
 					ori -= 3; // the composition is a regular cube
 
-				// +++++++++++++++++++++not used in this implementation +++++++++++++++++++++++++++++++++++
+				// +++++++++++++++++++++only used by the symmetries +++++++++++++++++++++++++++++++++++++++
 			} else if (oriA < 3 && oriB >= 3) // if cube b is in a mirrored
 			// state...
 			{
@@ -238,27 +251,24 @@ class CubieCube {
 					ori += 3; // the composition is a regular cube
 				// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 			}
-			cOri[corn.ordinal()] = ori;
-		}
-		for (Corner c : Corner.values()) {
-			cp[c.ordinal()] = cPerm[c.ordinal()];
-			co[c.ordinal()] = cOri[c.ordinal()];
+			tmp[corn] = ori;
 		}
+		System.arraycopy(tmp, 0, co, 0, 8); // the permutation below does not depend on the orientation
+		for (int corn = 0; corn < 8; corn++)
+			tmp[corn] = cp[bcp[corn]];
+		System.arraycopy(tmp, 0, cp, 0, 8);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Multiply this CubieCube with another cubiecube b, restricted to the edges.
 	void edgeMultiply(CubieCube b) {
-		Edge[] ePerm = new Edge[12];
-		byte[] eOri = new byte[12];
-		for (Edge edge : Edge.values()) {
-			ePerm[edge.ordinal()] = ep[b.ep[edge.ordinal()].ordinal()];
-			eOri[edge.ordinal()] = (byte) ((b.eo[edge.ordinal()] + eo[b.ep[edge.ordinal()].ordinal()]) % 2);
-		}
-		for (Edge e : Edge.values()) {
-			ep[e.ordinal()] = ePerm[e.ordinal()];
-			eo[e.ordinal()] = eOri[e.ordinal()];
-		}
+		byte[] bep = b.ep, beo = b.eo;
+		for (int edge = 0; edge < 12; edge++)
+			tmp[edge] = (byte) (beo[edge] ^ eo[bep[edge]]);
+		System.arraycopy(tmp, 0, eo, 0, 12);
+		for (int edge = 0; edge < 12; edge++)
+			tmp[edge] = ep[bep[edge]];
+		System.arraycopy(tmp, 0, ep, 0, 12);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
@@ -271,21 +281,21 @@ class CubieCube {
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Compute the inverse CubieCube
 	void invCubieCube(CubieCube c) {
-		for (Edge edge : Edge.values())
-			c.ep[ep[edge.ordinal()].ordinal()] = edge;
-		for (Edge edge : Edge.values())
-			c.eo[edge.ordinal()] = eo[c.ep[edge.ordinal()].ordinal()];
-		for (Corner corn : Corner.values())
-			c.cp[cp[corn.ordinal()].ordinal()] = corn;
-		for (Corner corn : Corner.values()) {
-			byte ori = co[c.cp[corn.ordinal()].ordinal()];
+		for (int edge = 0; edge < 12; edge++)
+			c.ep[ep[edge]] = (byte) edge;
+		for (int edge = 0; edge < 12; edge++)
+			c.eo[edge] = eo[c.ep[edge]];
+		for (int corn = 0; corn < 8; corn++)
+			c.cp[cp[corn]] = (byte) corn;
+		for (int corn = 0; corn < 8; corn++) {
+			byte ori = co[c.cp[corn]];
 			if (ori >= 3)// Just for completeness. We do not invert mirrored
 				// cubes in the program.
-				c.co[corn.ordinal()] = ori;
+				c.co[corn] = ori;
 			else {// the standard case
-				c.co[corn.ordinal()] = (byte) -ori;
-				if (c.co[corn.ordinal()] < 0)
-					c.co[corn.ordinal()] += 3;
+				c.co[corn] = (byte) -ori;
+				if (c.co[corn] < 0)
+					c.co[corn] += 3;
 			}
 		}
 	}
@@ -334,9 +344,9 @@ class CubieCube {
 	// Parity of the corner permutation
 	short cornerParity() {
 		int s = 0;
-		for (int i = DRB.ordinal(); i >= URF.ordinal() + 1; i--)
-			for (int j = i - 1; j >= URF.ordinal(); j--)
-				if (cp[j].ordinal() > cp[i].ordinal())
+		for (int i = 7; i >= 1; i--)
+			for (int j = i - 1; j >= 0; j--)
+				if (cp[j] > cp[i])
 					s++;
 		return (short) (s % 2);
 	}
@@ -345,9 +355,9 @@ class CubieCube {
 	// Parity of the edges permutation. Parity of corners and edges are the same if the cube is solvable.
 	short edgeParity() {
 		int s = 0;
-		for (int i = BR.ordinal(); i >= UR.ordinal() + 1; i--)
-			for (int j = i - 1; j >= UR.ordinal(); j--)
-				if (ep[j].ordinal() > ep[i].ordinal())
+		for (int i = 11; i >= 1; i--)
+			for (int j = i - 1; j >= 0; j--)
+				if (ep[j] > ep[i])
 					s++;
 		return (short) (s % 2);
 	}
@@ -356,56 +366,48 @@ class CubieCube {
 	// permutation of the UD-slice edges FR,FL,BL and BR
 	short getFRtoBR() {
 		int a = 0, x = 0;
-		Edge[] edge4 = new Edge[4];
+		byte[] edge4 = tmp;
 		// compute the index a < (12 choose 4) and the permutation array perm.
-		for (int j = BR.ordinal(); j >= UR.ordinal(); j--)
-			if (FR.ordinal() <= ep[j].ordinal() && ep[j].ordinal() <= BR.ordinal()) {
-				a += Cnk(11 - j, x + 1);
+		for (int j = 11; j >= 0; j--)
+			if (ep[j] >= 8) { // FR..BR
+				a += CNK[11 - j][x + 1];
 				edge4[3 - x++] = ep[j];
 			}
 
 		int b = 0;
 		for (int j = 3; j > 0; j--)// compute the index b < 4! for the
-		// permutation in perm
-		{
-			int k = 0;
-			while (edge4[j].ordinal() != j + 8) {
-				rotateLeft(edge4, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			// permutation in perm
+			b = (j + 1) * b + rotateToEnd(edge4, j, j + 8);
 		return (short) (24 * a + b);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setFRtoBR(short idx) {
 		int x;
-		Edge[] sliceEdge = { FR, FL, BL, BR };
-		Edge[] otherEdge = { UR, UF, UL, UB, DR, DF, DL, DB };
+		byte[] sliceEdge = tmp; // FR, FL, BL, BR
 		int b = idx % 24; // Permutation
 		int a = idx / 24; // Combination
-		for (Edge e : Edge.values())
-			ep[e.ordinal()] = DB;// Use UR to invalidate all edges
+		for (int j = 0; j < 4; j++)
+			sliceEdge[j] = (byte) (j + 8);
+		for (int e = 0; e < 12; e++)
+			ep[e] = 7;// Use DB to invalidate all edges
 
-		for (int j = 1, k; j < 4; j++)// generate permutation from index b
+		for (int j = 1; j < 4; j++)// generate permutation from index b
 		{
-			k = b % (j + 1);
+			rotateRight(sliceEdge, j, b % (j + 1));
 			b /= j + 1;
-			while (k-- > 0)
-				rotateRight(sliceEdge, 0, j);
 		}
 
 		x = 3;// generate combination and set slice edges
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (a - Cnk(11 - j, x + 1) >= 0) {
+		for (int j = 0; j < 12; j++)
+			if (a - CNK[11 - j][x + 1] >= 0) {
 				ep[j] = sliceEdge[3 - x];
-				a -= Cnk(11 - j, x-- + 1);
+				a -= CNK[11 - j][x-- + 1];
 			}
 		x = 0; // set the remaining edges UR..DB
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (ep[j] == DB)
-				ep[j] = otherEdge[x++];
+		for (int j = 0; j < 12; j++)
+			if (ep[j] == 7)
+				ep[j] = (byte) x++;
 
 	}
 
@@ -413,110 +415,94 @@ class CubieCube {
 	// Permutation of all corners except DBL and DRB
 	short getURFtoDLF() {
 		int a = 0, x = 0;
-		Corner[] corner6 = new Corner[6];
+		byte[] corner6 = tmp;
 		// compute the index a < (8 choose 6) and the corner permutation.
-		for (int j = URF.ordinal(); j <= DRB.ordinal(); j++)
-			if (cp[j].ordinal() <= DLF.ordinal()) {
-				a += Cnk(j, x + 1);
+		for (int j = 0; j < 8; j++)
+			if (cp[j] <= 5) { // URF..DLF
+				a += CNK[j][x + 1];
 				corner6[x++] = cp[j];
 			}
 
 		int b = 0;
 		for (int j = 5; j > 0; j--)// compute the index b < 6! for the
-		// permutation in corner6
-		{
-			int k = 0;
-			while (corner6[j].ordinal() != j) {
-				rotateLeft(corner6, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			// permutation in corner6
+			b = (j + 1) * b + rotateToEnd(corner6, j, j);
 		return (short) (720 * a + b);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setURFtoDLF(short idx) {
 		int x;
-		Corner[] corner6 = { URF, UFL, ULB, UBR, DFR, DLF };
-		Corner[] otherCorner = { DBL, DRB };
+		byte[] corner6 = tmp; // URF..DLF
 		int b = idx % 720; // Permutation
 		int a = idx / 720; // Combination
-		for (Corner c : Corner.values())
-			cp[c.ordinal()] = DRB;// Use DRB to invalidate all corners
+		for (int j = 0; j < 6; j++)
+			corner6[j] = (byte) j;
+		for (int c = 0; c < 8; c++)
+			cp[c] = 7;// Use DRB to invalidate all corners
 
-		for (int j = 1, k; j < 6; j++)// generate permutation from index b
+		for (int j = 1; j < 6; j++)// generate permutation from index b
 		{
-			k = b % (j + 1);
+			rotateRight(corner6, j, b % (j + 1));
 			b /= j + 1;
-			while (k-- > 0)
-				rotateRight(corner6, 0, j);
 		}
 		x = 5;// generate combination and set corners
-		for (int j = DRB.ordinal(); j >= 0; j--)
-			if (a - Cnk(j, x + 1) >= 0) {
+		for (int j = 7; j >= 0; j--)
+			if (a - CNK[j][x + 1] >= 0) {
 				cp[j] = corner6[x];
-				a -= Cnk(j, x-- + 1);
+				a -= CNK[j][x-- + 1];
 			}
-		x = 0;
-		for (int j = URF.ordinal(); j <= DRB.ordinal(); j++)
-			if (cp[j] == DRB)
-				cp[j] = otherCorner[x++];
+		x = 6; // set the remaining corners DBL and DRB
+		for (int j = 0; j < 8; j++)
+			if (cp[j] == 7)
+				cp[j] = (byte) x++;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Permutation of the six edges UR,UF,UL,UB,DR,DF.
 	int getURtoDF() {
 		int a = 0, x = 0;
-		Edge[] edge6 = new Edge[6];
+		byte[] edge6 = tmp;
 		// compute the index a < (12 choose 6) and the edge permutation.
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (ep[j].ordinal() <= DF.ordinal()) {
-				a += Cnk(j, x + 1);
+		for (int j = 0; j < 12; j++)
+			if (ep[j] <= 5) { // UR..DF
+				a += CNK[j][x + 1];
 				edge6[x++] = ep[j];
 			}
 
 		int b = 0;
 		for (int j = 5; j > 0; j--)// compute the index b < 6! for the
-		// permutation in edge6
-		{
-			int k = 0;
-			while (edge6[j].ordinal() != j) {
-				rotateLeft(edge6, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			// permutation in edge6
+			b = (j + 1) * b + rotateToEnd(edge6, j, j);
 		return 720 * a + b;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setURtoDF(int idx) {
 		int x;
-		Edge[] edge6 = { UR, UF, UL, UB, DR, DF };
-		Edge[] otherEdge = { DL, DB, FR, FL, BL, BR };
+		byte[] edge6 = tmp; // UR..DF
 		int b = idx % 720; // Permutation
 		int a = idx / 720; // Combination
-		for (Edge e : Edge.values())
-			ep[e.ordinal()] = BR;// Use BR to invalidate all edges
+		for (int j = 0; j < 6; j++)
+			edge6[j] = (byte) j;
+		for (int e = 0; e < 12; e++)
+			ep[e] = 11;// Use BR to invalidate all edges
 
-		for (int j = 1, k; j < 6; j++)// generate permutation from index b
+		for (int j = 1; j < 6; j++)// generate permutation from index b
 		{
-			k = b % (j + 1);
+			rotateRight(edge6, j, b % (j + 1));
 			b /= j + 1;
-			while (k-- > 0)
-				rotateRight(edge6, 0, j);
 		}
 		x = 5;// generate combination and set edges
-		for (int j = BR.ordinal(); j >= 0; j--)
-			if (a - Cnk(j, x + 1) >= 0) {
+		for (int j = 11; j >= 0; j--)
+			if (a - CNK[j][x + 1] >= 0) {
 				ep[j] = edge6[x];
-				a -= Cnk(j, x-- + 1);
+				a -= CNK[j][x-- + 1];
 			}
-		x = 0; // set the remaining edges DL..BR
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (ep[j] == BR)
-				ep[j] = otherEdge[x++];
+		x = 6; // set the remaining edges DL..BR
+		for (int j = 0; j < 12; j++)
+			if (ep[j] == 11)
+				ep[j] = (byte) x++;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
@@ -527,8 +513,8 @@ class CubieCube {
 		a.setURtoUL(idx1);
 		b.setUBtoDF(idx2);
 		for (int i = 0; i < 8; i++) {
-			if (a.ep[i] != BR)
-				if (b.ep[i] != BR)// collision
+			if (a.ep[i] != 11)
+				if (b.ep[i] != 11)// collision
 					return -1;
 				else
 					b.ep[i] = a.ep[i];
@@ -540,49 +526,42 @@ class CubieCube {
 	// Permutation of the three edges UR,UF,UL
 	short getURtoUL() {
 		int a = 0, x = 0;
-		Edge[] edge3 = new Edge[3];
+		byte[] edge3 = tmp;
 		// compute the index a < (12 choose 3) and the edge permutation.
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (ep[j].ordinal() <= UL.ordinal()) {
-				a += Cnk(j, x + 1);
+		for (int j = 0; j < 12; j++)
+			if (ep[j] <= 2) { // UR..UL
+				a += CNK[j][x + 1];
 				edge3[x++] = ep[j];
 			}
 
 		int b = 0;
 		for (int j = 2; j > 0; j--)// compute the index b < 3! for the
-		// permutation in edge3
-		{
-			int k = 0;
-			while (edge3[j].ordinal() != j) {
-				rotateLeft(edge3, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			// permutation in edge3
+			b = (j + 1) * b + rotateToEnd(edge3, j, j);
 		return (short) (6 * a + b);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setURtoUL(short idx) {
 		int x;
-		Edge[] edge3 = { UR, UF, UL };
+		byte[] edge3 = tmp; // UR, UF, UL
 		int b = idx % 6; // Permutation
 		int a = idx / 6; // Combination
-		for (Edge e : Edge.values())
-			ep[e.ordinal()] = BR;// Use BR to invalidate all edges
+		for (int j = 0; j < 3; j++)
+			edge3[j] = (byte) j;
+		for (int e = 0; e < 12; e++)
+			ep[e] = 11;// Use BR to invalidate all edges
 
-		for (int j = 1, k; j < 3; j++)// generate permutation from index b
+		for (int j = 1; j < 3; j++)// generate permutation from index b
 		{
-			k = b % (j + 1);
+			rotateRight(edge3, j, b % (j + 1));
 			b /= j + 1;
-			while (k-- > 0)
-				rotateRight(edge3, 0, j);
 		}
 		x = 2;// generate combination and set edges
-		for (int j = BR.ordinal(); j >= 0; j--)
-			if (a - Cnk(j, x + 1) >= 0) {
+		for (int j = 11; j >= 0; j--)
+			if (a - CNK[j][x + 1] >= 0) {
 				ep[j] = edge3[x];
-				a -= Cnk(j, x-- + 1);
+				a -= CNK[j][x-- + 1];
 			}
 	}
 
@@ -590,116 +569,83 @@ class CubieCube {
 	// Permutation of the three edges UB,DR,DF
 	short getUBtoDF() {
 		int a = 0, x = 0;
-		Edge[] edge3 = new Edge[3];
+		byte[] edge3 = tmp;
 		// compute the index a < (12 choose 3) and the edge permutation.
-		for (int j = UR.ordinal(); j <= BR.ordinal(); j++)
-			if (UB.ordinal() <= ep[j].ordinal() && ep[j].ordinal() <= DF.ordinal()) {
-				a += Cnk(j, x + 1);
+		for (int j = 0; j < 12; j++)
+			if (3 <= ep[j] && ep[j] <= 5) { // UB..DF
+				a += CNK[j][x + 1];
 				edge3[x++] = ep[j];
 			}
 
 		int b = 0;
 		for (int j = 2; j > 0; j--)// compute the index b < 3! for the
-		// permutation in edge3
-		{
-			int k = 0;
-			while (edge3[j].ordinal() != UB.ordinal() + j) {
-				rotateLeft(edge3, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			// permutation in edge3
+			b = (j + 1) * b + rotateToEnd(edge3, j, j + 3);
 		return (short) (6 * a + b);
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setUBtoDF(short idx) {
 		int x;
-		Edge[] edge3 = { UB, DR, DF };
+		byte[] edge3 = tmp; // UB, DR, DF
 		int b = idx % 6; // Permutation
 		int a = idx / 6; // Combination
-		for (Edge e : Edge.values())
-			ep[e.ordinal()] = BR;// Use BR to invalidate all edges
+		for (int j = 0; j < 3; j++)
+			edge3[j] = (byte) (j + 3);
+		for (int e = 0; e < 12; e++)
+			ep[e] = 11;// Use BR to invalidate all edges
 
-		for (int j = 1, k; j < 3; j++)// generate permutation from index b
+		for (int j = 1; j < 3; j++)// generate permutation from index b
 		{
-			k = b % (j + 1);
+			rotateRight(edge3, j, b % (j + 1));
 			b /= j + 1;
-			while (k-- > 0)
-				rotateRight(edge3, 0, j);
 		}
 		x = 2;// generate combination and set edges
-		for (int j = BR.ordinal(); j >= 0; j--)
-			if (a - Cnk(j, x + 1) >= 0) {
+		for (int j = 11; j >= 0; j--)
+			if (a - CNK[j][x + 1] >= 0) {
 				ep[j] = edge3[x];
-				a -= Cnk(j, x-- + 1);
+				a -= CNK[j][x-- + 1];
 			}
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	int getURFtoDLB() {
-		Corner[] perm = new Corner[8];
+		byte[] perm = tmp;
 		int b = 0;
-		for (int i = 0; i < 8; i++)
-			perm[i] = cp[i];
+		System.arraycopy(cp, 0, perm, 0, 8);
 		for (int j = 7; j > 0; j--)// compute the index b < 8! for the permutation in perm
-		{
-			int k = 0;
-			while (perm[j].ordinal() != j) {
-				rotateLeft(perm, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			b = (j + 1) * b + rotateToEnd(perm, j, j);
 		return b;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setURFtoDLB(int idx) {
-		Corner[] perm = { URF, UFL, ULB, UBR, DFR, DLF, DBL, DRB };
-		int k;
+		for (int j = 0; j < 8; j++)
+			cp[j] = (byte) j;
 		for (int j = 1; j < 8; j++) {
-			k = idx % (j + 1);
+			rotateRight(cp, j, idx % (j + 1));
 			idx /= j + 1;
-			while (k-- > 0)
-				rotateRight(perm, 0, j);
 		}
-		int x = 7;// set corners
-		for (int j = 7; j >= 0; j--)
-			cp[j] = perm[x--];
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	int getURtoBR() {
-		Edge[] perm = new Edge[12];
+		byte[] perm = tmp;
 		int b = 0;
-		for (int i = 0; i < 12; i++)
-			perm[i] = ep[i];
+		System.arraycopy(ep, 0, perm, 0, 12);
 		for (int j = 11; j > 0; j--)// compute the index b < 12! for the permutation in perm
-		{
-			int k = 0;
-			while (perm[j].ordinal() != j) {
-				rotateLeft(perm, 0, j);
-				k++;
-			}
-			b = (j + 1) * b + k;
-		}
+			b = (j + 1) * b + rotateToEnd(perm, j, j);
 		return b;
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	void setURtoBR(int idx) {
-		Edge[] perm = { UR, UF, UL, UB, DR, DF, DL, DB, FR, FL, BL, BR };
-		int k;
+		for (int j = 0; j < 12; j++)
+			ep[j] = (byte) j;
 		for (int j = 1; j < 12; j++) {
-			k = idx % (j + 1);
+			rotateRight(ep, j, idx % (j + 1));
 			idx /= j + 1;
-			while (k-- > 0)
-				rotateRight(perm, 0, j);
 		}
-		int x = 11;// set edges
-		for (int j = 11; j >= 0; j--)
-			ep[j] = perm[x--];
 	}
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
@@ -712,24 +658,22 @@ class CubieCube {
 	// -6: Parity error: Two corners ore two edges have to be exchanged
 	int verify() {
 		int sum = 0;
-		int[] edgeCount = new int[12];
-		for (Edge e : Edge.values())
-			edgeCount[ep[e.ordinal()].ordinal()]++;
-		for (int i = 0; i < 12; i++)
-			if (edgeCount[i] != 1)
-				return -2;
+		int edges = 0; // bit e is set if edge e exists
+		for (int e = 0; e < 12; e++)
+			edges |= 1 << ep[e];
+		if (edges != 0xFFF)
+			return -2;
 
 		for (int i = 0; i < 12; i++)
 			sum += eo[i];
 		if (sum % 2 != 0)
 			return -3;
 
-		int[] cornerCount = new int[8];
-		for (Corner c : Corner.values())
-			cornerCount[cp[c.ordinal()].ordinal()]++;
-		for (int i = 0; i < 8; i++)
-			if (cornerCount[i] != 1)
-				return -4;// missing corners
+		int corners = 0; // bit c is set if corner c exists
+		for (int c = 0; c < 8; c++)
+			corners |= 1 << cp[c];
+		if (corners != 0xFF)
+			return -4;// missing corners
 
 		sum = 0;
 		for (int i = 0; i < 8; i++)
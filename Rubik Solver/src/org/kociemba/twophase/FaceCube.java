@@ -2,8 +2,6 @@ package org.kociemba.twophase;
 
 import static org.kociemba.twophase.Facelet.*;
 import static org.kociemba.twophase.Color.*;
-import static org.kociemba.twophase.Corner.*;
-import static org.kociemba.twophase.Edge.*;
 
 //++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 //Cube on the facelet level
@@ -65,9 +63,9 @@ class FaceCube {
 		byte ori;
 		CubieCube ccRet = new CubieCube();
 		for (int i = 0; i < 8; i++)
-			ccRet.cp[i] = URF;// invalidate corners
+			ccRet.cp[i] = 0;// invalidate corners
 		for (int i = 0; i < 12; i++)
-			ccRet.ep[i] = UR;// and edges
+			ccRet.ep[i] = 0;// and edges
 		Color col1, col2;
 		for (Corner i : Corner.values()) {
 			// get the colors of the cubie at corner i, starting with U/D
@@ -80,7 +78,7 @@ class FaceCube {
 			for (Corner j : Corner.values()) {
 				if (col1 == cornerColor[j.ordinal()][1] && col2 == cornerColor[j.ordinal()][2]) {
 					// in cornerposition i we have cornercubie j
-					ccRet.cp[i.ordinal()] = j;
+					ccRet.cp[i.ordinal()] = (byte) j.ordinal();
 					ccRet.co[i.ordinal()] = (byte) (ori % 3);
 					break;
 				}
@@ -90,13 +88,13 @@ class FaceCube {
 			for (Edge j : Edge.values()) {
 				if (f[edgeFacelet[i.ordinal()][0].ordinal()] == edgeColor[j.ordinal()][0]
 						&& f[edgeFacelet[i.ordinal()][1].ordinal()] == edgeColor[j.ordinal()][1]) {
-					ccRet.ep[i.ordinal()] = j;
+					ccRet.ep[i.ordinal()] = (byte) j.ordinal();
 					ccRet.eo[i.ordinal()] = 0;
 					break;
 				}
 				if (f[edgeFacelet[i.ordinal()][0].ordinal()] == edgeColor[j.ordinal()][1]
 						&& f[edgeFacelet[i.ordinal()][1].ordinal()] == edgeColor[j.ordinal()][0]) {
-					ccRet.ep[i.ordinal()] = j;
+					ccRet.ep[i.ordinal()] = (byte) j.ordinal();
 					ccRet.eo[i.ordinal()] = 1;
 					break;
 				}
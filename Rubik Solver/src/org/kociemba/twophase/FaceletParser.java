@@ -0,0 +1,137 @@
+package org.kociemba.twophase;
+
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Reads cube definition strings, see {@link Facelet}, straight into a {@link CubieCube} and checks them like
+ * {@link Tools#verify(CharSequence)}, without going over {@link FaceCube}.
+ * <p>
+ * Parsing allocates nothing: the colors are counted and the cubies identified with lookup tables, and an invalid
+ * character or a string of the wrong length is the error code -1, not an exception. The input may be any
+ * {@link CharSequence} or ASCII bytes, so a corpus file written by {@link CubeCorpus#write} can be verified in bulk
+ * with {@link #verify(byte[], int, int, int, int[])}. A parser keeps the last cube it read and is not thread safe;
+ * use one parser per thread.
+ */
+public class FaceletParser {
+
+	private static final long NINE_OF_EACH = 0x090909090909L; // the color counts, one byte per color
+
+	// The color of every ASCII character, -1 if it is not a color.
+	private static final byte[] color = new byte[128];
+
+	// The facelet positions of every corner and edge position, see FaceCube.cornerFacelet and FaceCube.edgeFacelet.
+	private static final byte[][] cornerFacelet = new byte[8][3];
+	private static final byte[][] edgeFacelet = new byte[12][2];
+
+	// The corner with the colors 6 * col1 + col2 clockwise after its U or D color, -1 if there is none.
+	private static final byte[] cornerOf = new byte[36];
+
+	// 2 * edge + orientation of the edge with the colors 6 * col1 + col2, -1 if there is none.
+	private static final byte[] edgeOf = new byte[36];
+
+	static {
+		Arrays.fill(color, (byte) -1);
+		for (Color c : Color.values())
+			color[c.name().charAt(0)] = (byte) c.ordinal();
+		Arrays.fill(cornerOf, (byte) -1);
+		for (int i = 0; i < 8; i++) {
+			for (int n = 0; n < 3; n++)
+				cornerFacelet[i][n] = (byte) FaceCube.cornerFacelet[i][n].ordinal();
+			cornerOf[6 * FaceCube.cornerColor[i][1].ordinal() + FaceCube.cornerColor[i][2].ordinal()] = (byte) i;
+		}
+		Arrays.fill(edgeOf, (byte) -1);
+		for (int i = 0; i < 12; i++) {
+			for (int n = 0; n < 2; n++)
+				edgeFacelet[i][n] = (byte) FaceCube.edgeFacelet[i][n].ordinal();
+			edgeOf[6 * FaceCube.edgeColor[i][0].ordinal() + FaceCube.edgeColor[i][1].ordinal()] = (byte) (2 * i);
+			edgeOf[6 * FaceCube.edgeColor[i][1].ordinal() + FaceCube.edgeColor[i][0].ordinal()] = (byte) (2 * i + 1);
+		}
+	}
+
+	private final byte[] f = new byte[54]; // the colors of the last cube
+	final CubieCube cc = new CubieCube(); // the last cube, valid if verify returned 0
+
+	/**
+	 * Reads and checks a cube definition string.
+	 *
+	 * @return the error code of {@link Tools#verify(CharSequence)}
+	 */
+	public int verify(CharSequence facelets) {
+		if (facelets.length() != 54)
+			return -1;
+		long count = 0;
+		for (int i = 0; i < 54; i++) {
+			char ch = facelets.charAt(i);
+			int c = ch < 128 ? color[ch] : -1;
+			if (c < 0)
+				return -1;
+			f[i] = (byte) c;
+			count += 1L << 8 * c;
+		}
+		return verify(count);
+	}
+
+	/**
+	 * Reads and checks the cube definition string in the 54 ASCII bytes of facelets that start at offset.
+	 *
+	 * @return the error code of {@link Tools#verify(CharSequence)}
+	 */
+	public int verify(byte[] facelets, int offset) {
+		long count = 0;
+		for (int i = 0; i < 54; i++) {
+			byte ch = facelets[offset + i];
+			int c = ch >= 0 ? color[ch] : -1;
+			if (c < 0)
+				return -1;
+			f[i] = (byte) c;
+			count += 1L << 8 * c;
+		}
+		return verify(count);
+	}
+
+	/**
+	 * Checks count cubes in a row, cube i starting at offset + i * stride; a corpus file in the
+	 * {@link CubeCorpus.Format#FACELETS} format has a stride of 55.
+	 *
+	 * @param results
+	 *          receives the error code of {@link Tools#verify(CharSequence)} of every cube; may be null.
+	 * @return the number of solvable cubes
+	 */
+	public int verify(byte[] facelets, int offset, int stride, int count, int[] results) {
+		int solvable = 0;
+		for (int i = 0; i < count; i++) {
+			int s = verify(facelets, offset + i * stride);
+			if (s == 0)
+				solvable++;
+			if (results != null)
+				results[i] = s;
+		}
+		return solvable;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Check the color counts, convert the colors in f to cc like FaceCube.toCubieCube() and check cc.
+	private int verify(long count) {
+		if (count != NINE_OF_EACH)
+			return -1;
+		byte[] f = this.f;
+		CubieCube cc = this.cc;
+		for (int i = 0; i < 8; i++) {
+			byte[] facelet = cornerFacelet[i];
+			int ori;
+			for (ori = 0; ori < 3; ori++) // get the colors of the cubie at corner i, starting with U/D
+				if (f[facelet[ori]] == Color.U.ordinal() || f[facelet[ori]] == Color.D.ordinal())
+					break;
+			int j = cornerOf[6 * f[facelet[(ori + 1) % 3]] + f[facelet[(ori + 2) % 3]]];
+			cc.cp[i] = (byte) Math.max(j, 0);
+			cc.co[i] = (byte) (j < 0 ? 0 : ori % 3);
+		}
+		for (int i = 0; i < 12; i++) {
+			int j = edgeOf[6 * f[edgeFacelet[i][0]] + f[edgeFacelet[i][1]]];
+			cc.ep[i] = (byte) (j < 0 ? 0 : j >> 1);
+			cc.eo[i] = (byte) (j < 0 ? 0 : j & 1);
+		}
+		return cc.verify();
+	}
+}
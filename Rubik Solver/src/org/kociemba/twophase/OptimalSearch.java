@@ -0,0 +1,227 @@
+package org.kociemba.twophase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Class OptimalSearch finds a shortest solution of a cube with an iterative deepening A* search (IDA*) in the full
+ * cube group.
+ * <p>
+ * The distance to the solved cube is estimated by the maximum of several lower bounds: the pattern databases for all
+ * corners, for the UD-slice edges with the orientation of all edges and for the U and D edges (see
+ * {@link PruneTableLoader#loadPatternDatabases(int)}), and the phase 1 distance of the two-phase tables, because every
+ * solution passes through the phase 2 subgroup. If the symmetry reduced phase 1 table has been loaded with
+ * {@link PruneTableLoader#loadSymmetryTables(int)}, its exact phase 1 distance is used as well.
+ * <p>
+ * An optimal solution may take minutes or longer. The search gives up when its time is up; {@link #getLowerBound()}
+ * then tells how many moves the shortest solution has at least. Like {@link Search}, every thread needs its own
+ * instance.
+ */
+public class OptimalSearch {
+
+	private static final int MAX_LENGTH = 20; // every cube can be solved in 20 moves
+
+	private static final int NOT_FOUND = 0;
+	private static final int FOUND = 1;
+	private static final int TIME_OUT = 2;
+	private static final int CANCELLED = 3;
+
+	private final int[] ax = new int[MAX_LENGTH + 1]; // The axis of the move
+	private final int[] po = new int[MAX_LENGTH + 1]; // The power of the move
+
+	private final int[] twist = new int[MAX_LENGTH + 1]; // coordinates of the cube after n moves
+	private final int[] flip = new int[MAX_LENGTH + 1];
+	private final int[] FRtoBR = new int[MAX_LENGTH + 1];
+	private final int[] URFtoDLF = new int[MAX_LENGTH + 1];
+	private final int[] parity = new int[MAX_LENGTH + 1];
+	private final int[] URtoUL = new int[MAX_LENGTH + 1];
+	private final int[] UBtoDF = new int[MAX_LENGTH + 1];
+	private final int[] distPhase1 = new int[MAX_LENGTH + 1]; // exact phase1 distance, only with FlipSlice_Twist_Prun
+
+	private final FaceletParser parser = new FaceletParser();
+
+	private boolean symmetric; // FlipSlice_Twist_Prun is used
+	private int sliceFlipFill; // fill depths of Slice_Flip_Prun and Slice_Twist_Prun, see CoordCube
+	private int sliceTwistFill;
+	private long deadline; // System.nanoTime() at which the search gives up
+	private AtomicBoolean cancelled; // cancellation token of the current solve, may be null
+	private long nodes;
+	private int lowerBound;
+
+	/**
+	 * Creates a search context with its own IDA* stacks. It can be reused for any number of consecutive solves.
+	 */
+	public OptimalSearch() {
+	}
+
+	/**
+	 * Computes a shortest solver string for a given cube.
+	 *
+	 * @param facelets
+	 *          is the cube definition string, see {@link Facelet} for the format.
+	 * @param timeOut
+	 *          defines the maximum computing time of the method in seconds. If it does not return with a solution, it
+	 *          returns with an error code and {@link #getLowerBound()} returns the best proven lower bound.
+	 * @return The solution string or an error code:<br>
+	 *         Error 1 to Error 6: the cube is not solvable, see {@link Search#solution(String, int, long, boolean)}<br>
+	 *         Error 8: Timeout, no solution within given time<br>
+	 *         Error 9: The calling thread was interrupted
+	 * @throws IllegalStateException
+	 *           if the pattern databases or the pruning tables have not been loaded
+	 */
+	public String solve(String facelets, long timeOut) {
+		return solveUntil(facelets, System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOut), null).toString();
+	}
+
+	/**
+	 * Computes a shortest solution for a given cube, until a deadline or a cancellation. All its moves count as phase 1
+	 * moves, see {@link Solution#getPhase1Length()}.
+	 *
+	 * @param facelets
+	 *          is the cube definition string, see {@link Facelet} for the format.
+	 * @param deadline
+	 *          the value of {@link System#nanoTime()} at which the search stops with {@link Solution.Status#TIMEOUT};
+	 *          {@link #getLowerBound()} then returns the best proven lower bound.
+	 * @param cancelled
+	 *          stops the search with {@link Solution.Status#CANCELLED} once it is set; may be null. The search also
+	 *          stops with CANCELLED if the calling thread is interrupted, and leaves the interrupt status set.
+	 * @return the moves of the solution or the reason why there is none, see {@link Solution.Status}
+	 * @throws IllegalStateException
+	 *           if the pattern databases or the pruning tables have not been loaded
+	 */
+	public Solution solveUntil(String facelets, long deadline, AtomicBoolean cancelled) {
+		if (CoordCube.Corner_Prun == null || CoordCube.FRtoBR_Flip_Prun == null || CoordCube.URtoUL_UBtoDF_Prun == null)
+			throw new IllegalStateException("The pattern databases have not been loaded");
+		int s;
+		if ((s = parser.verify(facelets)) != 0)
+			return new Solution(Solution.Status.forCode(s), 0, 0);
+		long tStart = System.nanoTime();
+
+		// +++++++++++++++++++++++ initialization +++++++++++++++++++++++++++++++++
+		CoordCube c = new CoordCube(parser.cc);
+		twist[0] = c.twist;
+		flip[0] = c.flip;
+		FRtoBR[0] = c.FRtoBR;
+		URFtoDLF[0] = c.URFtoDLF;
+		parity[0] = c.parity;
+		URtoUL[0] = c.URtoUL;
+		UBtoDF[0] = c.UBtoDF;
+		symmetric = CoordCube.FlipSlice_Twist_Prun != null;
+		sliceFlipFill = CoordCube.Slice_Flip_Fill;
+		sliceTwistFill = CoordCube.Slice_Twist_Fill;
+		if (!symmetric && (sliceFlipFill < 0 || sliceTwistFill < 0))
+			throw new IllegalStateException("The pruning tables have not been loaded");
+		if (symmetric)
+			distPhase1[0] = CoordCube.getFlipSliceTwistDepth(flip[0], slice(0), twist[0]);
+		nodes = 0;
+		this.deadline = deadline;
+		this.cancelled = cancelled;
+
+		// +++++++++++++++++++ iterative deepening ++++++++++++++++++++++++++++++++
+		for (lowerBound = distance(0, MAX_LENGTH + 1); lowerBound <= MAX_LENGTH; lowerBound++) {
+			int r = search(0, lowerBound);
+			if (r == FOUND) {
+				byte[] moves = new byte[lowerBound];
+				for (int i = 0; i < lowerBound; i++)
+					moves[i] = (byte) (3 * ax[i] + po[i] - 1);
+				return new Solution(moves, lowerBound, nodes, System.nanoTime() - tStart);
+			}
+			if (r == TIME_OUT)
+				return new Solution(Solution.Status.TIMEOUT, nodes, System.nanoTime() - tStart);
+			if (r == CANCELLED)
+				return new Solution(Solution.Status.CANCELLED, nodes, System.nanoTime() - tStart);
+		}
+		throw new IllegalStateException("No solution with at most " + MAX_LENGTH + " moves");
+	}
+
+	/**
+	 * @return the length of the solution found by the last solve, or, if it timed out, the number of moves every
+	 *         solution of the cube has at least
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return the number of search nodes generated by the last solve of this context
+	 */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Depth first search for a solution with exactly togo more moves from the cube after n moves.
+	private int search(int n, int togo) {
+		if (togo == 0)
+			return isSolved(n) ? FOUND : NOT_FOUND;
+		for (int a = 0; a < 6; a++) {
+			if (n > 0 && (a == ax[n - 1] || a == ax[n - 1] - 3))
+				continue; // same face twice, or the opposite faces in the other order
+			ax[n] = a;
+			for (int p = 1; p <= 3; p++) {
+				if ((++nodes & 0xfff) == 0) {
+					if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.get()))
+						return CANCELLED;
+					if (System.nanoTime() - deadline > 0)
+						return TIME_OUT;
+				}
+				move(n, 3 * a + p - 1);
+				if (distance(n + 1, togo) >= togo)
+					continue;
+				po[n] = p;
+				int r = search(n + 1, togo - 1);
+				if (r != NOT_FOUND)
+					return r;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Compute the coordinates after n + 1 moves.
+	private void move(int n, int mv) {
+		twist[n + 1] = CoordCube.twistMove.get(CoordCube.N_MOVE * twist[n] + mv);
+		flip[n + 1] = CoordCube.flipMove.get(CoordCube.N_MOVE * flip[n] + mv);
+		FRtoBR[n + 1] = CoordCube.FRtoBR_Move.get(CoordCube.N_MOVE * FRtoBR[n] + mv);
+		URFtoDLF[n + 1] = CoordCube.URFtoDLF_Move.get(CoordCube.N_MOVE * URFtoDLF[n] + mv);
+		parity[n + 1] = CoordCube.parityMove[CoordCube.N_MOVE * parity[n] + mv];
+		URtoUL[n + 1] = CoordCube.URtoUL_Move.get(CoordCube.N_MOVE * URtoUL[n] + mv);
+		UBtoDF[n + 1] = CoordCube.UBtoDF_Move.get(CoordCube.N_MOVE * UBtoDF[n] + mv);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Lower bound for the number of moves that solve the cube after n moves. Stops as soon as one bound reaches limit.
+	private int distance(int n, int limit) {
+		int d = CoordCube.getPruning(CoordCube.Corner_Prun, CoordCube.N_TWIST * (2 * URFtoDLF[n] + parity[n]) + twist[n]);
+		if (d >= limit)
+			return d;
+		if (symmetric) {
+			if (n > 0)
+				distPhase1[n] = CoordCube.getFlipSliceTwistDepth(distPhase1[n - 1], flip[n], slice(n), twist[n]);
+			d = Math.max(d, distPhase1[n]);
+		} else
+			d = Math.max(d, Math.max(CoordCube.getPruning(CoordCube.Slice_Flip_Prun, CoordCube.N_SLICE1 * flip[n]
+					+ slice(n), sliceFlipFill), CoordCube.getPruning(CoordCube.Slice_Twist_Prun, CoordCube.N_SLICE1 * twist[n]
+					+ slice(n), sliceTwistFill)));
+		if (d >= limit)
+			return d;
+		d = Math.max(d, CoordCube.getPruning(CoordCube.FRtoBR_Flip_Prun, CoordCube.N_FLIP * FRtoBR[n] + flip[n]));
+		if (d >= limit)
+			return d;
+		return Math.max(d, CoordCube.getPruning(CoordCube.URtoUL_UBtoDF_Prun, CoordCube.N_UBtoDF * URtoUL[n] + UBtoDF[n]));
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private int slice(int n) {
+		return FRtoBR[n] / 24;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// All coordinates are 0 for a solved cube except for UBtoDF, which is 114. The positions of the DL and DB edges are
+	// determined by the parity.
+	private boolean isSolved(int n) {
+		return twist[n] == 0 && flip[n] == 0 && FRtoBR[n] == 0 && URFtoDLF[n] == 0 && parity[n] == 0 && URtoUL[n] == 0
+				&& UBtoDF[n] == 114;
+	}
+}
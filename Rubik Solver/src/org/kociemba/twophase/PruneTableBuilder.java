@@ -0,0 +1,239 @@
+package org.kociemba.twophase;
+
+import static org.kociemba.twophase.CoordCube.getPruning;
+import static org.kociemba.twophase.CoordCube.setPruning;
+import static org.kociemba.twophase.CoordCube.setPruning3;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Breadth first search that fills a pruning table with the distance of every coordinate to the solved coordinate.
+ * Subclasses define the coordinate by its size and its move function. The table is a direct buffer outside of the Java
+ * heap, see {@link TableStore}.
+ * <p>
+ * The search keeps the visited entries and the frontier, the entries of the current depth, in bit sets, so it never
+ * scans the table itself. Every depth is expanded either forward (take the entries of the frontier and mark their
+ * unvisited neighbours) or backward (take the unvisited entries and check if one of their neighbours is in the
+ * frontier). Forward is cheaper while the frontier is small, backward once the frontier outgrows the unvisited
+ * entries, which happens past the middle depth. Both passes skip 64 entries at a time where the bit sets have no
+ * candidate. The backward pass only writes the entry it looks at, so it is split into index ranges that are processed
+ * in parallel. The ranges start at multiples of 64, so two threads never write the same word of a bit set or the two
+ * values packed into the same byte of the table. Since the allowed move sets are closed under inversion, the
+ * neighbours of an entry are also its predecessors.
+ */
+abstract class PruneTableBuilder {
+
+	// The moves of phase 1 and of phase 2. In phase 2 only U, D, R2, F2, L2 and B2 are allowed.
+	static final int[] PHASE1_MOVES = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17 };
+	static final int[] PHASE2_MOVES = { 0, 1, 2, 4, 7, 9, 10, 11, 13, 16 };
+
+	private static final int CHUNK = 1 << 14; // entries per range of the parallel backward pass; a multiple of 64
+
+	private final int size;
+	private final int[] moves;
+	private final int goal;
+
+	/**
+	 * @param size the number of coordinate values
+	 * @param moves the allowed moves, either {@link #PHASE1_MOVES} or {@link #PHASE2_MOVES}
+	 */
+	PruneTableBuilder(int size, int[] moves) {
+		this(size, moves, 0);
+	}
+
+	/**
+	 * @param size the number of coordinate values
+	 * @param moves the allowed moves, either {@link #PHASE1_MOVES} or {@link #PHASE2_MOVES}
+	 * @param goal the coordinate of the solved cube
+	 */
+	PruneTableBuilder(int size, int[] moves, int goal) {
+		this.size = size;
+		this.moves = moves;
+		this.goal = goal;
+	}
+
+	/**
+	 * @return the coordinate reached from coordinate <code>index</code> by move <code>move</code>
+	 */
+	abstract int move(int index, int move);
+
+	/**
+	 * Called by {@link #build(Executor, int)} once the entries up to <code>depth</code> have been filled, starting with
+	 * depth 0, so the table can be used before it is complete. Entries beyond depth may already be set, but only to
+	 * depth + 1. Does nothing by default.
+	 */
+	void filled(ByteBuffer table, int depth) {
+	}
+
+	/**
+	 * Generates the pruning table. The coordinate may have values that no cube reaches, like some of those of the
+	 * pattern databases of {@link OptimalSearch}; their entries keep the value 0x0f.
+	 *
+	 * @param pool executes the backward passes on additional threads; may be null if <code>parallelism</code> is 1
+	 * @param parallelism the number of threads, including the calling thread, that process a backward pass
+	 * @return the pruning table with two entries per byte
+	 */
+	ByteBuffer build(Executor pool, int parallelism) {
+		final ByteBuffer table = TableStore.newPruningTable(size);
+		final LongBuffer visited = TableStore.newBitSet(size);
+		LongBuffer frontier = TableStore.newBitSet(size);
+		LongBuffer next = TableStore.newBitSet(size);
+		if ((size & 63) != 0) // the bits beyond the last entry count as visited, so no pass ever looks at them
+			visited.put(size >>> 6, -1L << size);
+
+		int depth = 0;
+		setPruning(table, goal, (byte) 0);
+		visited.put(goal >>> 6, visited.get(goal >>> 6) | 1L << goal);
+		frontier.put(goal >>> 6, 1L << goal);
+		filled(table, depth);
+		int done = 1;
+		int found = 1;
+		while (found != 0 && done != size) {
+			if (size - done < found * parallelism) {
+				final int d = depth;
+				final LongBuffer current = frontier, marked = next;
+				if (parallelism <= 1)
+					found = backward(table, visited, current, marked, d, 0, size);
+				else
+					found = forEachRange(size, CHUNK, pool, parallelism, new Range() {
+						@Override
+						public int run(int from, int to) {
+							return backward(table, visited, current, marked, d, from, to);
+						}
+					});
+			} else
+				found = forward(table, visited, frontier, next, depth);
+			LongBuffer t = frontier;
+			frontier = next;
+			next = t;
+			for (int w = 0; w < next.capacity(); w++)
+				next.put(w, 0);
+			done += found;
+			depth++;
+			filled(table, depth);
+		}
+		return table;
+	}
+
+	/**
+	 * Generates the pruning table like {@link #build(Executor, int)}, but keeps only the distances modulo 3. The table
+	 * with two entries per byte only exists during the generation.
+	 *
+	 * @param pool executes the backward passes on additional threads; may be null if <code>parallelism</code> is 1
+	 * @param parallelism the number of threads, including the calling thread, that process a backward pass
+	 * @return the pruning table with sixteen entries per int, see {@link CoordCube#getPruning3(IntBuffer, int)}
+	 */
+	IntBuffer buildMod3(Executor pool, int parallelism) {
+		ByteBuffer table = build(pool, parallelism);
+		IntBuffer mod3 = TableStore.newPruning3Table(size);
+		for (int i = 0; i < size; i++)
+			setPruning3(mod3, i, getPruning(table, i) % 3);
+		return mod3;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Mark all unvisited neighbours of the entries in frontier, which have the given depth, in the table, in visited
+	// and in next. Returns the number of marked entries.
+	private int forward(ByteBuffer table, LongBuffer visited, LongBuffer frontier, LongBuffer next, int depth) {
+		int found = 0;
+		for (int w = 0; w < frontier.capacity(); w++) {
+			for (long bits = frontier.get(w); bits != 0; bits &= bits - 1) {
+				int i = w << 6 | Long.numberOfTrailingZeros(bits);
+				for (int j : moves) {
+					int k = move(i, j);
+					long v = visited.get(k >>> 6);
+					if ((v & 1L << k) == 0) {
+						visited.put(k >>> 6, v | 1L << k);
+						next.put(k >>> 6, next.get(k >>> 6) | 1L << k);
+						setPruning(table, k, (byte) (depth + 1));
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Mark all unvisited entries in [from, to) that have a neighbour in frontier, which has the given depth, in the
+	// table, in visited and in next. from is a multiple of 64. Returns the number of marked entries.
+	private int backward(ByteBuffer table, LongBuffer visited, LongBuffer frontier, LongBuffer next, int depth,
+			int from, int to) {
+		int found = 0;
+		for (int w = from >>> 6; w < (to + 63) >>> 6; w++) {
+			long marked = 0;
+			for (long bits = ~visited.get(w); bits != 0; bits &= bits - 1) {
+				int i = w << 6 | Long.numberOfTrailingZeros(bits);
+				for (int j : moves) {
+					int k = move(i, j);
+					if ((frontier.get(k >>> 6) & 1L << k) != 0) {
+						marked |= 1L << i;
+						setPruning(table, i, (byte) (depth + 1));
+						found++;
+						break;
+					}
+				}
+			}
+			if (marked != 0) {
+				visited.put(w, visited.get(w) | marked);
+				next.put(w, marked);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * A part of a pass over a table that can run concurrently with the other parts.
+	 */
+	interface Range {
+		/**
+		 * @return the number of entries marked in [from, to)
+		 */
+		int run(int from, int to);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Run range over [0, size) in pieces of chunk entries on up to parallelism threads and return the sum of the results.
+	// The calling thread works on the pieces itself, so it never waits for a helper that has not been started yet because
+	// the pool is busy.
+	static int forEachRange(final int size, final int chunk, Executor pool, int parallelism, final Range range) {
+		final int chunks = (size + chunk - 1) / chunk;
+		final AtomicInteger nextChunk = new AtomicInteger();
+		final AtomicInteger pending = new AtomicInteger(chunks);
+		final AtomicInteger found = new AtomicInteger();
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int c;
+				while ((c = nextChunk.getAndIncrement()) < chunks) {
+					found.addAndGet(range.run(c * chunk, (int) Math.min(size, (long) (c + 1) * chunk)));
+					if (pending.decrementAndGet() == 0) {
+						synchronized (pending) {
+							pending.notifyAll();
+						}
+					}
+				}
+			}
+		};
+		for (int h = 1; h < Math.min(parallelism, chunks); h++)
+			pool.execute(worker);
+		worker.run();
+
+		synchronized (pending) {
+			while (pending.get() > 0) {
+				try {
+					pending.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while generating a pruning table", e);
+				}
+			}
+		}
+		return found.get();
+	}
+}
@@ -1,9 +1,25 @@
 package org.kociemba.twophase;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.kociemba.twophase.CoordCube.Corner_Prun;
+import static org.kociemba.twophase.CoordCube.FRtoBR_Flip_Prun;
+import static org.kociemba.twophase.CoordCube.FILLED;
 import static org.kociemba.twophase.CoordCube.FRtoBR_Move;
+import static org.kociemba.twophase.CoordCube.FlipSlice_Twist_Prun;
 import static org.kociemba.twophase.CoordCube.MergeURtoULandUBtoDF;
+import static org.kociemba.twophase.CoordCube.N_CORNER_PRUN;
 import static org.kociemba.twophase.CoordCube.N_FLIP;
 import static org.kociemba.twophase.CoordCube.N_FRtoBR;
+import static org.kociemba.twophase.CoordCube.N_FRtoBR_FLIP_PRUN;
 import static org.kociemba.twophase.CoordCube.N_MOVE;
 import static org.kociemba.twophase.CoordCube.N_PARITY;
 import static org.kociemba.twophase.CoordCube.N_SLICE1;
@@ -13,18 +29,24 @@ import static org.kociemba.twophase.CoordCube.N_UBtoDF;
 import static org.kociemba.twophase.CoordCube.N_URFtoDLF;
 import static org.kociemba.twophase.CoordCube.N_URtoDF;
 import static org.kociemba.twophase.CoordCube.N_URtoUL;
+import static org.kociemba.twophase.CoordCube.N_URtoUL_UBtoDF_PRUN;
+import static org.kociemba.twophase.CoordCube.Slice_Flip_Fill;
 import static org.kociemba.twophase.CoordCube.Slice_Flip_Prun;
+import static org.kociemba.twophase.CoordCube.Slice_Twist_Fill;
 import static org.kociemba.twophase.CoordCube.Slice_Twist_Prun;
+import static org.kociemba.twophase.CoordCube.Slice_URFtoDLF_Parity_Fill;
 import static org.kociemba.twophase.CoordCube.Slice_URFtoDLF_Parity_Prun;
+import static org.kociemba.twophase.CoordCube.Slice_URFtoDLF_Parity_Prun3;
+import static org.kociemba.twophase.CoordCube.Slice_URtoDF_Parity_Fill;
 import static org.kociemba.twophase.CoordCube.Slice_URtoDF_Parity_Prun;
+import static org.kociemba.twophase.CoordCube.Slice_URtoDF_Parity_Prun3;
 import static org.kociemba.twophase.CoordCube.UBtoDF_Move;
 import static org.kociemba.twophase.CoordCube.URFtoDLF_Move;
 import static org.kociemba.twophase.CoordCube.URtoDF_Move;
 import static org.kociemba.twophase.CoordCube.URtoUL_Move;
+import static org.kociemba.twophase.CoordCube.URtoUL_UBtoDF_Prun;
 import static org.kociemba.twophase.CoordCube.flipMove;
-import static org.kociemba.twophase.CoordCube.getPruning;
 import static org.kociemba.twophase.CoordCube.parityMove;
-import static org.kociemba.twophase.CoordCube.setPruning;
 import static org.kociemba.twophase.CoordCube.twistMove;
 
 /**
@@ -38,6 +60,12 @@ import static org.kociemba.twophase.CoordCube.twistMove;
  *       loadNext();
  * </pre></code>
  * 
+ * <p>On multi-core devices {@link #loadAll(int, Listener)} generates all tables concurrently instead.
+ * 
+ * <p>Once generated, the tables can be written to a file with {@link #saveToFile(File)} and restored on later starts
+ * with {@link #loadFromFile(File)}, which is much faster than generating them again. A compressed table asset built
+ * on the desktop with {@link #saveCompressed(File)} is streamed in with {@link #loadFromChannel(ReadableByteChannel)}.
+ * 
  * <p><i>Note</i>: For this class to have any effect, you must have replaced {@link CoordCube} with the custom 
  * implementation beforehand.
  * 
@@ -47,14 +75,70 @@ import static org.kociemba.twophase.CoordCube.twistMove;
  */
 public class PruneTableLoader {
 	private static final int TABLES = 12; // there are 12 different pruning tables to load
+	private static final int MOVE_TABLES = 8; // the first 8 tables are move tables, the others pruning tables
+	
+	/* names of the tables in loading order */
+	private static final String[] TABLE_NAMES = { "twistMove", "flipMove", "FRtoBR_Move", "URFtoDLF_Move",
+		"URtoDF_Move", "URtoUL_Move", "UBtoDF_Move", "MergeURtoULandUBtoDF", "Slice_URFtoDLF_Parity_Prun",
+		"Slice_URtoDF_Parity_Prun", "Slice_Twist_Prun", "Slice_Flip_Prun" };
+	
+	/* the move tables each pruning table is generated from; the move tables only depend on CubieCube */
+	private static final int[][] DEPENDENCIES = { {}, {}, {}, {}, {}, {}, {}, {}, { 2, 3 }, { 2, 4 }, { 2, 0 }, { 2, 1 } };
 	
 	private int tablesLoaded; // the number of already loaded tables
+	private final AtomicInteger moveTablesFinished = new AtomicInteger(); // the number of complete move tables
+	
+	private final long[] generationNanos = new long[TABLES]; // time spent generating each table
+	private long totalNanos; // wall clock time spent generating all tables
+	
+	private Executor pool; // runs the parallel passes of the pruning table generation, only set during loadAll()
+	private int parallelism = 1;
+	
+	private final Phase2Encoding phase2Encoding;
+	
+	/**
+	 * How the two phase 2 pruning tables Slice_URFtoDLF_Parity_Prun and Slice_URtoDF_Parity_Prun store their distances.
+	 */
+	public enum Phase2Encoding {
+		/**
+		 * Four bits per entry: the distance itself. This is the default.
+		 */
+		NIBBLE,
+		/**
+		 * Two bits per entry: the distance modulo 3. The tables take half the memory, about 240 KB each. The distance
+		 * after a move differs by at most one from the distance before it, so {@link Search} tracks the exact distances
+		 * move by move and only walks down to the solved cube once at the beginning of every phase 2 search.
+		 */
+		MOD3
+	}
+	
+	/**
+	 * Receives a notification for every table that has been loaded by {@link PruneTableLoader#loadAll(int, Listener)}.
+	 * Notifications are serialized, but come from the generating threads.
+	 */
+	public interface Listener {
+		/**
+		 * @param table the index of the table in loading order
+		 * @param nanos the wall clock time it took to generate the table
+		 */
+		void onTableLoaded(int table, long nanos);
+	}
 	
 	/**
 	 * Constructor<br>
 	 * Number of tables loaded is set to 0.
 	 */
 	public PruneTableLoader() {
+		this(Phase2Encoding.NIBBLE);
+	}
+	
+	/**
+	 * Constructor<br>
+	 * Number of tables loaded is set to 0.
+	 * @param phase2Encoding how the phase 2 pruning tables generated or loaded by this loader store their distances
+	 */
+	public PruneTableLoader(Phase2Encoding phase2Encoding) {
+		this.phase2Encoding = phase2Encoding;
 		tablesLoaded = 0;
 	}
 	
@@ -69,7 +153,253 @@ public class PruneTableLoader {
 	 * @param force if true override it even if it already exists; if false only load when it is <i>null</i>
 	 */
 	public void loadNext(boolean force) {
-		switch(tablesLoaded++) {
+		int table = tablesLoaded++;
+		if (table >= TABLES)
+			return;
+		long tStart = System.nanoTime();
+		load(table, force);
+		generationNanos[table] = System.nanoTime() - tStart;
+		totalNanos += generationNanos[table];
+		if (table < MOVE_TABLES)
+			moveTablesFinished.incrementAndGet();
+	}
+	
+	/**
+	 * Loads all remaining tables on several threads; tables which already exist are kept.<br>
+	 * The move tables are independent of each other and are generated concurrently. Every pruning table is started as
+	 * soon as the move tables it is generated from are finished, and the later depths of its breadth first search are
+	 * split into index ranges which are processed in parallel.
+	 * @param threads the number of threads to use
+	 * @param listener notified after each table; may be null
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the tables
+	 */
+	public void loadAll(int threads, Listener listener) throws InterruptedException {
+		long tStart = System.nanoTime();
+		ParallelLoad parallelLoad = new ParallelLoad(threads, listener);
+		pool = parallelLoad.executor;
+		parallelism = threads;
+		try {
+			parallelLoad.run();
+		} finally {
+			parallelLoad.executor.shutdownNow();
+			pool = null;
+			parallelism = 1;
+		}
+		tablesLoaded = TABLES;
+		totalNanos = System.nanoTime() - tStart;
+	}
+	
+	/**
+	 * Generates the symmetry reduced phase 1 pruning table needed by {@link Search.Phase1Pruning#FLIPSLICE_TWIST}.<br>
+	 * The table takes about 35 MB and much longer to generate than all other tables together, so it is not part of
+	 * {@link #loadNext()} and {@link #loadAll(int, Listener)}. The tables twistMove, flipMove and FRtoBR_Move must
+	 * already be loaded.
+	 * @param threads the number of threads to use
+	 * @throws IllegalStateException if the move tables it is generated from have not been loaded yet
+	 */
+	public void loadSymmetryTables(int threads) {
+		if (twistMove == null || flipMove == null || FRtoBR_Move == null)
+			throw new IllegalStateException("The phase 1 move tables must be loaded first");
+		if (FlipSlice_Twist_Prun != null)
+			return;
+		ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1) : null;
+		try {
+			Symmetry.loadTwistConj();
+			Symmetry.loadFlipSliceClasses();
+			FlipSlice_Twist_Prun = SymPruneTableBuilder.build(executor, threads);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Generates the pattern databases needed by {@link OptimalSearch}.<br>
+	 * They take about 57 MB outside of the Java heap and are generated from the move tables twistMove, flipMove,
+	 * FRtoBR_Move, URFtoDLF_Move, URtoUL_Move and UBtoDF_Move, which must already be loaded. Generating them takes
+	 * much longer than all other tables together, so they should be saved with {@link #savePatternDatabases(File)} and
+	 * restored with {@link #loadPatternDatabasesFromFile(File)} on later starts.
+	 * @param threads the number of threads to use
+	 * @throws IllegalStateException if the move tables they are generated from have not been loaded yet
+	 */
+	public void loadPatternDatabases(int threads) {
+		if (twistMove == null || flipMove == null || FRtoBR_Move == null || URFtoDLF_Move == null
+				|| URtoUL_Move == null || UBtoDF_Move == null)
+			throw new IllegalStateException("The move tables must be loaded first");
+		if (Corner_Prun != null && FRtoBR_Flip_Prun != null && URtoUL_UBtoDF_Prun != null)
+			return;
+		ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1) : null;
+		try {
+			Corner_Prun = new PruneTableBuilder(N_CORNER_PRUN, PruneTableBuilder.PHASE1_MOVES) {
+				@Override
+				int move(int index, int move) {
+					int corner = index / N_TWIST;
+					int URFtoDLF = URFtoDLF_Move.get(N_MOVE * (corner >> 1) + move);
+					int parity = parityMove[N_MOVE * (corner & 1) + move];
+					return N_TWIST * (2 * URFtoDLF + parity) + twistMove.get(N_MOVE * (index % N_TWIST) + move);
+				}
+			}.build(executor, threads);
+			FRtoBR_Flip_Prun = new PruneTableBuilder(N_FRtoBR_FLIP_PRUN, PruneTableBuilder.PHASE1_MOVES) {
+				@Override
+				int move(int index, int move) {
+					return N_FLIP * FRtoBR_Move.get(N_MOVE * (index / N_FLIP) + move)
+							+ flipMove.get(N_MOVE * (index % N_FLIP) + move);
+				}
+			}.build(executor, threads);
+			URtoUL_UBtoDF_Prun = new PruneTableBuilder(N_URtoUL_UBtoDF_PRUN, PruneTableBuilder.PHASE1_MOVES, 114) {
+				@Override
+				int move(int index, int move) {
+					return N_UBtoDF * URtoUL_Move.get(N_MOVE * (index / N_UBtoDF) + move)
+							+ UBtoDF_Move.get(N_MOVE * (index % N_UBtoDF) + move);
+				}
+			}.build(executor, threads);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Loads the pattern databases of {@link OptimalSearch} from a file written by {@link #savePatternDatabases(File)}.
+	 * The file is mapped into memory and used without copying it.
+	 * @param file the pattern database file
+	 * @return true if the pattern databases have been loaded from the file; false if it is missing, stale or corrupt
+	 */
+	public boolean loadPatternDatabasesFromFile(File file) {
+		return TableFile.readPatternDatabases(file);
+	}
+	
+	/**
+	 * Writes the pattern databases to a file so that later starts can use {@link #loadPatternDatabasesFromFile(File)}.
+	 * @param file the pattern database file; an existing file is replaced
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if the pattern databases have not been loaded yet
+	 */
+	public void savePatternDatabases(File file) throws IOException {
+		TableFile.writePatternDatabases(file);
+	}
+	
+	/*
+	 * Runs every remaining table on a thread pool as soon as all tables it depends on are finished.
+	 */
+	private class ParallelLoad {
+		final ExecutorService executor;
+		final Listener listener;
+		final AtomicInteger[] missing = new AtomicInteger[TABLES]; // number of unfinished dependencies per table
+		final CountDownLatch finished = new CountDownLatch(TABLES - tablesLoaded);
+		volatile Throwable failure;
+		
+		ParallelLoad(int threads, Listener listener) {
+			this.executor = Executors.newFixedThreadPool(threads);
+			this.listener = listener;
+		}
+		
+		void run() throws InterruptedException {
+			for (int t = tablesLoaded; t < TABLES; t++) {
+				missing[t] = new AtomicInteger();
+				for (int d : DEPENDENCIES[t])
+					if (d >= tablesLoaded)
+						missing[t].incrementAndGet();
+			}
+			for (int t = tablesLoaded; t < TABLES; t++)
+				if (missing[t].get() == 0)
+					start(t);
+			
+			finished.await();
+			if (failure != null)
+				throw new IllegalStateException("Failed to generate the tables", failure);
+		}
+		
+		void start(final int table) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						long tStart = System.nanoTime();
+						load(table, false);
+						generationNanos[table] = System.nanoTime() - tStart;
+						if (table < MOVE_TABLES)
+							moveTablesFinished.incrementAndGet();
+						if (listener != null) {
+							synchronized (listener) {
+								listener.onTableLoaded(table, generationNanos[table]);
+							}
+						}
+						for (int t = table + 1; t < TABLES; t++)
+							for (int d : DEPENDENCIES[t])
+								if (d == table && missing[t].decrementAndGet() == 0)
+									start(t);
+						finished.countDown();
+					} catch (Throwable e) {
+						failure = e;
+						while (finished.getCount() > 0)
+							finished.countDown();
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Determines if all pruning tables have already been loaded by using this class.
+	 * @return true if all tables have already been loaded; false otherwise
+	 */
+	public boolean loadingFinished() {
+		return tablesLoaded >= TABLES;
+	}
+	
+	/**
+	 * Determines if {@link Search} can already solve cubes while {@link #loadAll(int, Listener)} is still generating the
+	 * tables on another thread: all move tables are complete and the generation of every pruning table has started.
+	 * A pruning table that is not complete yet only knows the distances up to the depth generated so far and estimates
+	 * all others with that depth + 1, so the search needs more nodes until the generation finishes. The phase 2 tables of
+	 * {@link Phase2Encoding#MOD3} can only be used once they are complete.
+	 * @return true if cubes can be solved; false if the tables are not far enough yet
+	 */
+	public boolean isSearchPossible() {
+		if (moveTablesFinished.get() < MOVE_TABLES)
+			return false;
+		boolean phase2Mod3 = Slice_URFtoDLF_Parity_Prun3 != null && Slice_URtoDF_Parity_Prun3 != null;
+		return Slice_Twist_Fill >= 0 && Slice_Flip_Fill >= 0
+				&& (phase2Mod3 || (Slice_URFtoDLF_Parity_Fill >= 0 && Slice_URtoDF_Parity_Fill >= 0));
+	}
+	
+	/**
+	 * @return the memory taken by all tables loaded so far, including the optional ones, in bytes. The tables are
+	 * direct buffers or views of the mapping of a table file and take no space on the Java heap.
+	 */
+	public static long getTableBytes() {
+		return TableStore.installedBytes();
+	}
+	
+	/**
+	 * @param table the index of the table in loading order
+	 * @return the name of the table in {@link CoordCube}
+	 */
+	public static String getTableName(int table) {
+		return TABLE_NAMES[table];
+	}
+	
+	/**
+	 * @param table the index of the table in loading order
+	 * @return the wall clock time in nanoseconds it took to generate the table, or 0 if it has not been generated
+	 */
+	public long getGenerationNanos(int table) {
+		return generationNanos[table];
+	}
+	
+	/**
+	 * @return the wall clock time in nanoseconds spent generating tables: the elapsed time of {@link #loadAll(int, Listener)}
+	 * or the sum of all {@link #loadNext()} calls
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Load a single table by its index in loading order.
+	private void load(int table, boolean force) {
+		switch(table) {
 			case 0:  loadTwistMoves(force);		 		 break;
 			case 1:  loadFlipMoves(force);  		 	 break;
 			case 2:  loadFRtoBRMoves(force);		 	 break;
@@ -87,11 +417,53 @@ public class PruneTableLoader {
 	}
 	
 	/**
-	 * Determines if all pruning tables have already been loaded by using this class.
-	 * @return true if all tables have already been loaded; false otherwise
+	 * Loads all tables from a file written by {@link #saveToFile(File)}.<br>
+	 * A missing, stale (written by a different table format version or with a different {@link Phase2Encoding}) or
+	 * corrupt file is ignored, in which case the tables have to be generated with {@link #loadNext()}.
+	 * @param file the table file
+	 * @return true if all tables have been loaded from the file; false otherwise
 	 */
-	public boolean loadingFinished() {
-		return tablesLoaded >= TABLES;
+	public boolean loadFromFile(File file) {
+		if (!TableFile.read(file, phase2Encoding == Phase2Encoding.MOD3))
+			return false;
+		tablesLoaded = TABLES;
+		moveTablesFinished.set(MOVE_TABLES);
+		return true;
+	}
+	
+	/**
+	 * Writes all tables to a file so that later starts can use {@link #loadFromFile(File)} instead of generating them.
+	 * @param file the table file; an existing file is replaced
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if not all tables have been loaded yet
+	 */
+	public void saveToFile(File file) throws IOException {
+		TableFile.write(file);
+	}
+	
+	/**
+	 * Loads all tables from a compressed table asset written by {@link #saveCompressed(File)}, for example one packed
+	 * into the app. The data is inflated in small chunks directly into the tables as the channel delivers it.<br>
+	 * A stale or corrupt asset is ignored, like by {@link #loadFromFile(File)}.
+	 * @param channel the channel to read the asset from; it is not closed
+	 * @return true if all tables have been loaded from the channel; false otherwise
+	 */
+	public boolean loadFromChannel(ReadableByteChannel channel) {
+		if (!TableFile.read(channel, phase2Encoding == Phase2Encoding.MOD3))
+			return false;
+		tablesLoaded = TABLES;
+		moveTablesFinished.set(MOVE_TABLES);
+		return true;
+	}
+	
+	/**
+	 * Writes all tables to a compressed table asset for {@link #loadFromChannel(ReadableByteChannel)}.
+	 * @param file the asset file; an existing file is replaced
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if not all tables have been loaded yet
+	 */
+	public void saveCompressed(File file) throws IOException {
+		TableFile.writeCompressed(file);
 	}
 	
 	/*
@@ -111,7 +483,7 @@ public class PruneTableLoader {
 		/* only load if not already loaded */
 		if (!force && twistMove != null)
 			return;
-		twistMove = new short[N_TWIST][N_MOVE];
+		twistMove = TableStore.newMoveTable(N_TWIST);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_TWIST; i++) {
@@ -119,7 +491,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.cornerMultiply(CubieCube.moveCube[j]);
-					twistMove[i][3 * j + k] = a.getTwist();
+					twistMove.put(N_MOVE * i + 3 * j + k, a.getTwist());
 				}
 				a.cornerMultiply(CubieCube.moveCube[j]); // 4. faceturn restores a
 			}
@@ -133,7 +505,7 @@ public class PruneTableLoader {
 	private void loadFlipMoves(boolean force) {
 		if (!force && flipMove != null)
 			return;
-		flipMove = new short[N_FLIP][N_MOVE];
+		flipMove = TableStore.newMoveTable(N_FLIP);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_FLIP; i++) {
@@ -141,7 +513,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.edgeMultiply(CubieCube.moveCube[j]);
-					flipMove[i][3 * j + k] = a.getFlip();
+					flipMove.put(N_MOVE * i + 3 * j + k, a.getFlip());
 				}
 				a.edgeMultiply(CubieCube.moveCube[j]); // a
 			}
@@ -158,7 +530,7 @@ public class PruneTableLoader {
 	private void loadFRtoBRMoves(boolean force) {
 		if (!force && FRtoBR_Move != null)
 			return;
-		FRtoBR_Move = new short[N_FRtoBR][N_MOVE];
+		FRtoBR_Move = TableStore.newMoveTable(N_FRtoBR);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_FRtoBR; i++) {
@@ -166,7 +538,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.edgeMultiply(CubieCube.moveCube[j]);
-					FRtoBR_Move[i][3 * j + k] = a.getFRtoBR();
+					FRtoBR_Move.put(N_MOVE * i + 3 * j + k, a.getFRtoBR());
 				}
 				a.edgeMultiply(CubieCube.moveCube[j]);
 			}
@@ -183,7 +555,7 @@ public class PruneTableLoader {
 	private void loadURFtoDLFMoves(boolean force) {
 		if (!force && URFtoDLF_Move != null)
 			return;
-		URFtoDLF_Move = new short[N_URFtoDLF][N_MOVE];
+		URFtoDLF_Move = TableStore.newMoveTable(N_URFtoDLF);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_URFtoDLF; i++) {
@@ -191,7 +563,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.cornerMultiply(CubieCube.moveCube[j]);
-					URFtoDLF_Move[i][3 * j + k] = a.getURFtoDLF();
+					URFtoDLF_Move.put(N_MOVE * i + 3 * j + k, a.getURFtoDLF());
 				}
 				a.cornerMultiply(CubieCube.moveCube[j]);
 			}
@@ -207,7 +579,7 @@ public class PruneTableLoader {
 	private void loadURtoDFMoves(boolean force) {
 		if (!force && URtoDF_Move != null)
 			return;
-		URtoDF_Move = new short[N_URtoDF][N_MOVE];
+		URtoDF_Move = TableStore.newMoveTable(N_URtoDF);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_URtoDF; i++) {
@@ -215,7 +587,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.edgeMultiply(CubieCube.moveCube[j]);
-					URtoDF_Move[i][3 * j + k] = (short) a.getURtoDF(); // Table values are only valid for phase 2 moves! For phase 1 moves, casting to short is not possible.
+					URtoDF_Move.put(N_MOVE * i + 3 * j + k, (short) a.getURtoDF()); // Table values are only valid for phase 2 moves! For phase 1 moves, casting to short is not possible.
 				}
 				a.edgeMultiply(CubieCube.moveCube[j]);
 			}
@@ -229,7 +601,7 @@ public class PruneTableLoader {
 	private void loadURtoULMoves(boolean force) {
 		if (!force && URtoUL_Move != null)
 			return;
-		URtoUL_Move = new short[N_URtoUL][N_MOVE];
+		URtoUL_Move = TableStore.newMoveTable(N_URtoUL);
 		
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_URtoUL; i++) {
@@ -237,7 +609,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.edgeMultiply(CubieCube.moveCube[j]);
-					URtoUL_Move[i][3 * j + k] = a.getURtoUL();
+					URtoUL_Move.put(N_MOVE * i + 3 * j + k, a.getURtoUL());
 				}
 				a.edgeMultiply(CubieCube.moveCube[j]);
 			}
@@ -249,7 +621,7 @@ public class PruneTableLoader {
 	private void loadUBtoDFMoves(boolean force) {
 		if (!force && UBtoDF_Move != null)
 			return;
-		UBtoDF_Move = new short[N_UBtoDF][N_MOVE];
+		UBtoDF_Move = TableStore.newMoveTable(N_UBtoDF);
 	
 		CubieCube a = new CubieCube();
 		for (short i = 0; i < N_UBtoDF; i++) {
@@ -257,7 +629,7 @@ public class PruneTableLoader {
 			for (int j = 0; j < 6; j++) {
 				for (int k = 0; k < 3; k++) {
 					a.edgeMultiply(CubieCube.moveCube[j]);
-					UBtoDF_Move[i][3 * j + k] = a.getUBtoDF();
+					UBtoDF_Move.put(N_MOVE * i + 3 * j + k, a.getUBtoDF());
 				}
 				a.edgeMultiply(CubieCube.moveCube[j]);
 			}
@@ -269,12 +641,12 @@ public class PruneTableLoader {
 	private void mergeURtoULandUBtoDF(boolean force) {
 		if (!force && MergeURtoULandUBtoDF != null)
 			return;
-		MergeURtoULandUBtoDF = new short[336][336];
+		MergeURtoULandUBtoDF = TableStore.newShorts(336 * 336);
 		
 		/* for i, j < 336 the six edges UR,UF,UL,UB,DR,DF are not in the UD-slice and the index is < 20160 */
 		for (short uRtoUL = 0; uRtoUL < 336; uRtoUL++) {
 			for (short uBtoDF = 0; uBtoDF < 336; uBtoDF++) {
-				MergeURtoULandUBtoDF[uRtoUL][uBtoDF] = (short) CubieCube.getURtoDF(uRtoUL, uBtoDF);
+				MergeURtoULandUBtoDF.put(336 * uRtoUL + uBtoDF, (short) CubieCube.getURtoDF(uRtoUL, uBtoDF));
 			}
 		}
 	}
@@ -285,47 +657,37 @@ public class PruneTableLoader {
 	// Pruning table for the permutation of the corners and the UD-slice edges in phase2.
 	// The pruning table entries give a lower estimation for the number of moves to reach the solved cube.
 	private void loadSliceURFtoDLFParityPrun(boolean force) {
-		if (!force && Slice_URFtoDLF_Parity_Prun != null)
+		final boolean mod3 = phase2Encoding == Phase2Encoding.MOD3;
+		if (!force && (mod3 ? Slice_URFtoDLF_Parity_Prun3 != null : Slice_URFtoDLF_Parity_Prun != null))
 			return;
-		Slice_URFtoDLF_Parity_Prun = new byte[N_SLICE2 * N_URFtoDLF * N_PARITY / 2];
-
-		for (int i = 0; i < N_SLICE2 * N_URFtoDLF * N_PARITY / 2; i++)
-			Slice_URFtoDLF_Parity_Prun[i] = -1;
-		
-		int depth = 0;
-		setPruning(Slice_URFtoDLF_Parity_Prun, 0, (byte) 0);
-		int done = 1;
-		while (done != N_SLICE2 * N_URFtoDLF * N_PARITY) {
-			for (int i = 0; i < N_SLICE2 * N_URFtoDLF * N_PARITY; i++) {
+		PruneTableBuilder builder = new PruneTableBuilder(N_SLICE2 * N_URFtoDLF * N_PARITY, PruneTableBuilder.PHASE2_MOVES) {
+			@Override
+			int move(int i, int j) {
 				int parity = i % 2;
 				int URFtoDLF = (i / 2) / N_SLICE2;
 				int slice = (i / 2) % N_SLICE2;
-				if (getPruning(Slice_URFtoDLF_Parity_Prun, i) == depth) {
-					for (int j = 0; j < 18; j++) {
-						switch (j) {
-						case 3:
-						case 5:
-						case 6:
-						case 8:
-						case 12:
-						case 14:
-						case 15:
-						case 17:
-							continue;
-						default:
-							int newSlice = FRtoBR_Move[slice][j];
-							int newURFtoDLF = URFtoDLF_Move[URFtoDLF][j];
-							int newParity = parityMove[parity][j];
-							if (getPruning(Slice_URFtoDLF_Parity_Prun, (N_SLICE2 * newURFtoDLF + newSlice) * 2 + newParity) == 0x0f) {
-								setPruning(Slice_URFtoDLF_Parity_Prun, (N_SLICE2 * newURFtoDLF + newSlice) * 2 + newParity,
-										(byte) (depth + 1));
-								done++;
-							}
-						}
-					}
+				int newSlice = FRtoBR_Move.get(N_MOVE * slice + j);
+				int newURFtoDLF = URFtoDLF_Move.get(N_MOVE * URFtoDLF + j);
+				int newParity = parityMove[N_MOVE * parity + j];
+				return (N_SLICE2 * newURFtoDLF + newSlice) * 2 + newParity;
+			}
+			
+			@Override
+			void filled(ByteBuffer table, int depth) {
+				if (!mod3) {
+					Slice_URFtoDLF_Parity_Prun = table;
+					Slice_URFtoDLF_Parity_Fill = depth;
 				}
 			}
-			depth++;
+		};
+		if (mod3) {
+			Slice_URFtoDLF_Parity_Prun3 = builder.buildMod3(pool, parallelism);
+			Slice_URFtoDLF_Parity_Fill = -1;
+			Slice_URFtoDLF_Parity_Prun = null;
+		} else {
+			Slice_URFtoDLF_Parity_Prun3 = null;
+			builder.build(pool, parallelism);
+			Slice_URFtoDLF_Parity_Fill = FILLED;
 		}
 	}
 	
@@ -333,47 +695,37 @@ public class PruneTableLoader {
 	// Pruning table for the permutation of the edges in phase2.
 	// The pruning table entries give a lower estimation for the number of moves to reach the solved cube.
 	private void loadSliceURtoDFParityPrun(boolean force) {
-		if (!force && Slice_URtoDF_Parity_Prun != null)
+		final boolean mod3 = phase2Encoding == Phase2Encoding.MOD3;
+		if (!force && (mod3 ? Slice_URtoDF_Parity_Prun3 != null : Slice_URtoDF_Parity_Prun != null))
 			return;
-		Slice_URtoDF_Parity_Prun = new byte[N_SLICE2 * N_URtoDF * N_PARITY / 2];
-		
-		for (int i = 0; i < N_SLICE2 * N_URtoDF * N_PARITY / 2; i++)
-			Slice_URtoDF_Parity_Prun[i] = -1;
-		
-		int depth = 0;
-		setPruning(Slice_URtoDF_Parity_Prun, 0, (byte) 0);
-		int done = 1;
-		while (done != N_SLICE2 * N_URtoDF * N_PARITY) {
-			for (int i = 0; i < N_SLICE2 * N_URtoDF * N_PARITY; i++) {
+		PruneTableBuilder builder = new PruneTableBuilder(N_SLICE2 * N_URtoDF * N_PARITY, PruneTableBuilder.PHASE2_MOVES) {
+			@Override
+			int move(int i, int j) {
 				int parity = i % 2;
 				int URtoDF = (i / 2) / N_SLICE2;
 				int slice = (i / 2) % N_SLICE2;
-				if (getPruning(Slice_URtoDF_Parity_Prun, i) == depth) {
-					for (int j = 0; j < 18; j++) {
-						switch (j) {
-						case 3:
-						case 5:
-						case 6:
-						case 8:
-						case 12:
-						case 14:
-						case 15:
-						case 17:
-							continue;
-						default:
-							int newSlice = FRtoBR_Move[slice][j];
-							int newURtoDF = URtoDF_Move[URtoDF][j];
-							int newParity = parityMove[parity][j];
-							if (getPruning(Slice_URtoDF_Parity_Prun, (N_SLICE2 * newURtoDF + newSlice) * 2 + newParity) == 0x0f) {
-								setPruning(Slice_URtoDF_Parity_Prun, (N_SLICE2 * newURtoDF + newSlice) * 2 + newParity,
-										(byte) (depth + 1));
-								done++;
-							}
-						}
-					}
+				int newSlice = FRtoBR_Move.get(N_MOVE * slice + j);
+				int newURtoDF = URtoDF_Move.get(N_MOVE * URtoDF + j);
+				int newParity = parityMove[N_MOVE * parity + j];
+				return (N_SLICE2 * newURtoDF + newSlice) * 2 + newParity;
+			}
+			
+			@Override
+			void filled(ByteBuffer table, int depth) {
+				if (!mod3) {
+					Slice_URtoDF_Parity_Prun = table;
+					Slice_URtoDF_Parity_Fill = depth;
 				}
 			}
-			depth++;
+		};
+		if (mod3) {
+			Slice_URtoDF_Parity_Prun3 = builder.buildMod3(pool, parallelism);
+			Slice_URtoDF_Parity_Fill = -1;
+			Slice_URtoDF_Parity_Prun = null;
+		} else {
+			Slice_URtoDF_Parity_Prun3 = null;
+			builder.build(pool, parallelism);
+			Slice_URtoDF_Parity_Fill = FILLED;
 		}
 	}
 	
@@ -383,30 +735,22 @@ public class PruneTableLoader {
 	private void loadSliceTwistPrune(boolean force) {
 		if (!force && Slice_Twist_Prun != null)
 			return;
-		Slice_Twist_Prun = new byte[N_SLICE1 * N_TWIST / 2 + 1];
-		
-		for (int i = 0; i < N_SLICE1 * N_TWIST / 2 + 1; i++)
-			Slice_Twist_Prun[i] = -1;
-		
-		int depth = 0;
-		setPruning(Slice_Twist_Prun, 0, (byte) 0);
-		int done = 1;
-		while (done != N_SLICE1 * N_TWIST) {
-			for (int i = 0; i < N_SLICE1 * N_TWIST; i++) {
+		new PruneTableBuilder(N_SLICE1 * N_TWIST, PruneTableBuilder.PHASE1_MOVES) {
+			@Override
+			int move(int i, int j) {
 				int twist = i / N_SLICE1, slice = i % N_SLICE1;
-				if (getPruning(Slice_Twist_Prun, i) == depth) {
-					for (int j = 0; j < 18; j++) {
-						int newSlice = FRtoBR_Move[slice * 24][j] / 24;
-						int newTwist = twistMove[twist][j];
-						if (getPruning(Slice_Twist_Prun, N_SLICE1 * newTwist + newSlice) == 0x0f) {
-							setPruning(Slice_Twist_Prun, N_SLICE1 * newTwist + newSlice, (byte) (depth + 1));
-							done++;
-						}
-					}
-				}
+				int newSlice = FRtoBR_Move.get(N_MOVE * 24 * slice + j) / 24;
+				int newTwist = twistMove.get(N_MOVE * twist + j);
+				return N_SLICE1 * newTwist + newSlice;
 			}
-			depth++;
-		}
+			
+			@Override
+			void filled(ByteBuffer table, int depth) {
+				Slice_Twist_Prun = table;
+				Slice_Twist_Fill = depth;
+			}
+		}.build(pool, parallelism);
+		Slice_Twist_Fill = FILLED;
 	}
 	
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
@@ -415,100 +759,21 @@ public class PruneTableLoader {
 	private void loadSliceFlipPrune(boolean force) {
 		if (!force && Slice_Flip_Prun != null)
 			return;
-		Slice_Flip_Prun = new byte[N_SLICE1 * N_FLIP / 2];
-		
-		for (int i = 0; i < N_SLICE1 * N_FLIP / 2; i++)
-			Slice_Flip_Prun[i] = -1;
-		
-		int depth = 0;
-		setPruning(Slice_Flip_Prun, 0, (byte) 0);
-		int done = 1;
-		while (done != N_SLICE1 * N_FLIP) {
-			for (int i = 0; i < N_SLICE1 * N_FLIP; i++) {
+		new PruneTableBuilder(N_SLICE1 * N_FLIP, PruneTableBuilder.PHASE1_MOVES) {
+			@Override
+			int move(int i, int j) {
 				int flip = i / N_SLICE1, slice = i % N_SLICE1;
-				if (getPruning(Slice_Flip_Prun, i) == depth) {
-					for (int j = 0; j < 18; j++) {
-						int newSlice = FRtoBR_Move[slice * 24][j] / 24;
-						int newFlip = flipMove[flip][j];
-						if (getPruning(Slice_Flip_Prun, N_SLICE1 * newFlip + newSlice) == 0x0f) {
-							setPruning(Slice_Flip_Prun, N_SLICE1 * newFlip + newSlice, (byte) (depth + 1));
-							done++;
-						}
-					}
-				}
+				int newSlice = FRtoBR_Move.get(N_MOVE * 24 * slice + j) / 24;
+				int newFlip = flipMove.get(N_MOVE * flip + j);
+				return N_SLICE1 * newFlip + newSlice;
 			}
-			depth++;
-		}
+			
+			@Override
+			void filled(ByteBuffer table, int depth) {
+				Slice_Flip_Prun = table;
+				Slice_Flip_Fill = depth;
+			}
+		}.build(pool, parallelism);
+		Slice_Flip_Fill = FILLED;
 	}
-	
-
-	
-	
-//	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-//	// Save prune tables to a file.
-//	public void saveTablesToFile() {
-//		
-//		Object [] tables = new Object[12];
-//		tables[0] = twistMove;
-//		tables[1] = flipMove;
-//		tables[2] = FRtoBR_Move;
-//		tables[3] = URFtoDLF_Move;
-//		tables[4] = URtoDF_Move;
-//		tables[5] = URtoUL_Move;
-//		tables[6] = UBtoDF_Move;
-//		tables[7] = MergeURtoULandUBtoDF;
-//		tables[8] = Slice_URFtoDLF_Parity_Prun;
-//		tables[9] = Slice_URtoDF_Parity_Prun;
-//		tables[10] = Slice_Twist_Prun;
-//		tables[11] = Slice_Flip_Prun;
-//		
-//		try {
-//			File path = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
-//			String filename = "cube.tbls";
-//			File file = new File(path, filename);
-//			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
-//			out.writeObject(tables);
-//			out.flush();
-//			out.close();
-//			Log.i(Constants.TAG, "SUCCESS writing prune tables to external storage:" + filename);
-//		}
-//		catch (Exception e) {
-//			System.out.print(e);
-//			Log.e(Constants.TAG, "Fail writing prune tables to external storage: " + e);
-//		}
-//	}
-//	
-//	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-//	// Recall prune tables from a file
-//	public boolean recallTablesFromFile() {
-//		
-//		try {
-//			File path = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES);
-//			String filename = "cube.tbls";
-//			File file = new File(path, filename);
-//	        ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
-//	        Object [] tables = (RubikFace[])in.readObject();
-//	        in.close();
-//	        
-//			twistMove = tables[0];
-//			flipMove = tables[1];
-//			FRtoBR_Move = tables[2];
-//			URFtoDLF_Move = tables[3];
-//			URtoDF_Move = tables[4];
-//			URtoUL_Move = tables[5];
-//			UBtoDF_Move = tables[6];
-//			MergeURtoULandUBtoDF = tables[7];
-//			Slice_URFtoDLF_Parity_Prun = tables[8];
-//			Slice_URtoDF_Parity_Prun = tables[9];
-//			Slice_Twist_Prun = tables[10];
-//			Slice_Flip_Prun = tables[11];
-//	        
-//	        
-//			Log.i(Constants.TAG, "SUCCESS reading cube state to external storage:" + filename);
-//		}
-//		catch (Exception e) {
-//			System.out.print(e);
-//			Log.e(Constants.TAG, "Fail reading cube to external storage: " + e);
-//		}
-//	}
 }
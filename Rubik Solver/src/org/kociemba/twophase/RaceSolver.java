@@ -0,0 +1,236 @@
+package org.kociemba.twophase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Solves a cube with six two-phase searches that run in parallel: along the UD, RL and FB axis, each for the cube and
+ * for its inverse.
+ * <p>
+ * {@link Search} always reduces the cube to the subgroup of the UD-axis. The cube is therefore rotated by
+ * {@link Symmetry#ROT_URF3}, which brings the RL and the FB axis into the place of the UD-axis, and inverted, because
+ * a solution of the inverse cube read backwards solves the cube. The searches share one bound for the length of the
+ * solution: as soon as one of them finds a solution, the others only look for shorter ones. The moves of every
+ * solution are translated back into the orientation of the given cube.
+ * <p>
+ * The searches run on a fixed pool of at most six threads, by default one per available processor. With fewer threads
+ * the remaining searches wait in the queue of the pool, the search of the cube as given first, so that on a single
+ * core the race is as fast as a single {@link Search}; a search that starts after the race has been decided returns at
+ * once. The tables in {@link CoordCube} must have been loaded with {@link PruneTableLoader} before.
+ */
+public class RaceSolver {
+
+	private static final int SEARCHES = 6; // 3 axes, each for the cube and its inverse
+
+	private static final int ROTATION = 16; // Symmetry.symCube[ROTATION * t] is ROT_URF3^t
+
+	private final ExecutorService pool;
+	private final Search.Phase1Pruning phase1Pruning;
+
+	/**
+	 * Creates a race solver with the default phase 1 pruning tables.
+	 */
+	public RaceSolver() {
+		this(Search.Phase1Pruning.SLICE_FLIP_TWIST);
+	}
+
+	/**
+	 * Creates a race solver whose searches use the given phase 1 pruning tables, with one thread per available
+	 * processor, but no more than six.
+	 */
+	public RaceSolver(Search.Phase1Pruning phase1Pruning) {
+		this(phase1Pruning, Math.min(SEARCHES, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Creates a race solver whose searches use the given phase 1 pruning tables and run on the given number of threads;
+	 * more than six threads are never used.
+	 */
+	public RaceSolver(Search.Phase1Pruning phase1Pruning, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		this.phase1Pruning = phase1Pruning;
+		this.pool = Executors.newFixedThreadPool(Math.min(SEARCHES, threads));
+	}
+
+	/**
+	 * Returns the first solution that one of the six searches finds. The parameters are the same as for
+	 * {@link Search#solution(String, int, long, boolean)}. If the solution comes from the inverse cube, its phase 1
+	 * moves are the inverted phase 2 moves, followed by the inverted phase 1 moves.
+	 *
+	 * @return the moves of the solution or the reason why there is none, see {@link Solution.Status}; the node count
+	 *         is that of all searches, the time that of the race
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the searches.
+	 */
+	public Solution solve(String facelets, int maxDepth, long timeOut) throws InterruptedException {
+		return race(facelets, maxDepth, timeOut, false);
+	}
+
+	/**
+	 * Returns the first solution that one of the six searches finds like {@link #solve(String, int, long)}, as the
+	 * solver string of {@link Search#solution(String, int, long, boolean)}. If the solution comes from the inverse
+	 * cube, the separator stands between the inverted phase 2 moves and the inverted phase 1 moves.
+	 *
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the searches.
+	 */
+	public String solve(String facelets, int maxDepth, long timeOut, boolean useSeparator) throws InterruptedException {
+		return solve(facelets, maxDepth, timeOut).toString(useSeparator);
+	}
+
+	/**
+	 * Returns the shortest solution that the six searches find until no search can find a shorter one or the time is
+	 * up. The parameters are the same as for {@link #solve(String, int, long)}; {@link Solution.Status#TIMEOUT} is
+	 * only returned if no solution at all was found within <code>timeOut</code>.
+	 *
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the searches.
+	 */
+	public Solution solveShortest(String facelets, int maxDepth, long timeOut) throws InterruptedException {
+		return race(facelets, maxDepth, timeOut, true);
+	}
+
+	/**
+	 * Returns the shortest solution like {@link #solveShortest(String, int, long)}, as a solver string like
+	 * {@link #solve(String, int, long, boolean)}; Error 8 is only returned if no solution at all was found within
+	 * <code>timeOut</code>.
+	 *
+	 * @throws InterruptedException
+	 *           if the calling thread is interrupted while waiting for the searches.
+	 */
+	public String solveShortest(String facelets, int maxDepth, long timeOut, boolean useSeparator)
+			throws InterruptedException {
+		return solveShortest(facelets, maxDepth, timeOut).toString(useSeparator);
+	}
+
+	/**
+	 * Stops the search threads. The solver cannot be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private Solution race(String facelets, final int maxDepth, long timeOut, boolean shortest)
+			throws InterruptedException {
+		int s;
+		FaceletParser parser = new FaceletParser();
+		if ((s = parser.verify(facelets)) != 0)
+			return new Solution(Solution.Status.forCode(s), 0, 0);
+		CubieCube cc = parser.cc;
+		CubieCube inv = new CubieCube();
+		cc.invCubieCube(inv);
+
+		long tStart = System.nanoTime();
+		final long deadline = tStart + TimeUnit.SECONDS.toNanos(timeOut);
+		final Race race = new Race(maxDepth, shortest);
+		List<Future<Solution>> searches = new ArrayList<Future<Solution>>(SEARCHES);
+		for (int t = 0; t < 3; t++)
+			for (int i = 0; i < 2; i++) {
+				final Entrant entrant = new Entrant(race, t, i == 1);
+				CubieCube rot = Symmetry.symCube[Symmetry.invIdx[ROTATION * t]];
+				final CubieCube c = new CubieCube(rot.cp, rot.co, rot.ep, rot.eo); // ROT_URF3^-t * cube * ROT_URF3^t
+				Symmetry.multiply(c, i == 1 ? inv : cc);
+				Symmetry.multiply(c, Symmetry.symCube[ROTATION * t]);
+				searches.add(pool.submit(new Callable<Solution>() {
+					@Override
+					public Solution call() {
+						if (race.bound.get() < 0) // decided while this search was queued
+							return new Solution(Solution.Status.NO_SOLUTION, 0, 0);
+						return new Search(phase1Pruning).solve(c, maxDepth, deadline, null, entrant);
+					}
+				}));
+			}
+
+		boolean timedOut = false;
+		long nodes = 0;
+		try {
+			for (Future<Solution> f : searches) {
+				Solution result = f.get();
+				timedOut |= result.getStatus() == Solution.Status.TIMEOUT;
+				nodes += result.getNodeCount();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Search failed", e.getCause());
+		} finally {
+			race.bound.set(-1);
+			for (Future<Solution> f : searches)
+				f.cancel(true);
+		}
+		long nanos = System.nanoTime() - tStart;
+		synchronized (race) {
+			if (race.best != null)
+				return new Solution(race.best, race.bestPhase1Length, nodes, nanos);
+		}
+		return new Solution(timedOut ? Solution.Status.TIMEOUT : Solution.Status.NO_SOLUTION, nodes, nanos);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The state shared by the six searches of one cube.
+	private static class Race {
+		final AtomicInteger bound; // the maximal length of the solutions still of interest
+		final boolean shortest; // go on after the first solution
+		byte[] best; // the moves of the shortest solution so far, guarded by this
+		int bestPhase1Length; // guarded by this
+
+		Race(int maxDepth, boolean shortest) {
+			this.bound = new AtomicInteger(maxDepth);
+			this.shortest = shortest;
+		}
+
+		// Lower the bound below length, unless another search already did.
+		void tighten(int length) {
+			int b;
+			while ((b = bound.get()) >= length && !bound.compareAndSet(b, shortest ? length - 1 : -1))
+				;
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// One of the six searches: the cube rotated by ROT_URF3^-t, or its inverse.
+	private static class Entrant implements Search.Solutions {
+		private final Race race;
+		private final int t;
+		private final boolean inverse;
+
+		Entrant(Race race, int t, boolean inverse) {
+			this.race = race;
+			this.t = t;
+			this.inverse = inverse;
+		}
+
+		@Override
+		public int bound() {
+			return race.bound.get();
+		}
+
+		@Override
+		public int found(int[] ax, int[] po, int length, int depthPhase1) {
+			byte[] moves = new byte[length];
+			for (int i = 0; i < length; i++) {
+				int mv = Symmetry.moveConj[CoordCube.N_MOVE * ROTATION * t + 3 * ax[i] + po[i] - 1];
+				if (inverse) // read backwards with inverted powers
+					moves[length - 1 - i] = (byte) (mv - mv % 3 + 2 - mv % 3);
+				else
+					moves[i] = (byte) mv;
+			}
+			synchronized (race) {
+				if (race.best == null || length < race.best.length) {
+					race.best = moves;
+					race.bestPhase1Length = inverse ? length - depthPhase1 : depthPhase1;
+				}
+			}
+			race.tighten(length);
+			return race.bound.get();
+		}
+	}
+}
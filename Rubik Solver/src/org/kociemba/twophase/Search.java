@@ -1,114 +1,136 @@
 package org.kociemba.twophase;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 //++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 /**
  * Class Search implements the Two-Phase-Algorithm.
+ * <p>
+ * All search state lives in the instance, so every thread that wants to solve cubes concurrently needs its own
+ * <code>Search</code> object. The move and pruning tables in {@link CoordCube} are shared read-only between all
+ * instances. A single instance must not be used by more than one thread at a time.
  */
 public class Search {
 
-	static int[] ax = new int[31]; // The axis of the move
-	static int[] po = new int[31]; // The power of the move
-
-	static int[] flip = new int[31]; // phase1 coordinates
-	static int[] twist = new int[31];
-	static int[] slice = new int[31];
-
-	static int[] parity = new int[31]; // phase2 coordinates
-	static int[] URFtoDLF = new int[31];
-	static int[] FRtoBR = new int[31];
-	static int[] URtoUL = new int[31];
-	static int[] UBtoDF = new int[31];
-	static int[] URtoDF = new int[31];
+	/**
+	 * The pruning tables used to estimate the distance to the end of phase 1.
+	 */
+	public enum Phase1Pruning {
+		/**
+		 * The maximum of the slice and flip and the slice and twist tables. This is the default.
+		 */
+		SLICE_FLIP_TWIST,
+		/**
+		 * The exact phase 1 distance from the symmetry reduced flipslice and twist table. It needs far fewer nodes, but
+		 * the table has to be generated with {@link PruneTableLoader#loadSymmetryTables(int)} first.
+		 */
+		FLIPSLICE_TWIST
+	}
 
-	static int[] minDistPhase1 = new int[31]; // IDA* distance do goal estimations
-	static int[] minDistPhase2 = new int[31];
+	private final Phase1Pruning phase1Pruning;
+	private final FaceletParser parser = new FaceletParser();
+
+	private final int[] ax = new int[31]; // The axis of the move
+	private final int[] po = new int[31]; // The power of the move
+
+	private final int[] flip = new int[31]; // phase1 coordinates
+	private final int[] twist = new int[31];
+	private final int[] slice = new int[31];
+
+	private final int[] parity = new int[31]; // phase2 coordinates
+	private final int[] URFtoDLF = new int[31];
+	private final int[] FRtoBR = new int[31];
+	private final int[] URtoUL = new int[31];
+	private final int[] UBtoDF = new int[31];
+	private final int[] URtoDF = new int[31];
+
+	private final int[] minDistPhase1 = new int[31]; // IDA* distance do goal estimations
+	private final int[] minDistPhase2 = new int[31];
+	private final int[] distPhase1 = new int[31]; // exact phase1 distance, only with Phase1Pruning.FLIPSLICE_TWIST
+	private final int[] distURFtoDLF = new int[31]; // exact phase2 distances, only with the modulo 3 phase2 tables
+	private final int[] distURtoDF = new int[31];
+
+	// The phase2 coordinates at depth i depend only on the first i phase1 moves, so sibling leaves share almost all of
+	// them. totalDepth keeps the moves it applied in phase1Moves; URFtoDLF, FRtoBR and parity are valid up to depth
+	// validPhase2, URtoUL and UBtoDF up to depth validUDEdges, as far as the moves are still the same.
+	private final int[] phase1Moves = new int[31];
+	private int validPhase2;
+	private int validUDEdges;
+
+	private boolean phase2Mod3; // the phase2 tables hold the distances modulo 3, see PruneTableLoader.Phase2Encoding
+
+	private int sliceFlipFill; // fill depths of the pruning tables when the current solve started, see CoordCube
+	private int sliceTwistFill;
+	private int URFtoDLFFill;
+	private int URtoDFFill;
+
+	private long nodes; // number of nodes generated in phase 1 and phase 2 by the last solve
+	private final SearchStats stats = new SearchStats(); // counters of the current or the last solve
+	private int iteration; // phase 1 depth of the current IDA* iteration
+	private long phase1Counted; // phase 1 nodes already attributed to the finished iterations
+
+	private static final int CHECK_NODES = 4096; // nodes between two checks of the deadline and the cancellation, 2^n
+
+	private long deadline; // System.nanoTime() at which the current solve times out
+	private AtomicBoolean cancelled; // cancellation token of the current solve, may be null
+	private Solution.Status stop; // TIMEOUT or CANCELLED once the current solve has to end
+
+	/*
+	 * Receives the solutions of a search that does not stop at the first solution, see RaceSolver. The bound may be
+	 * shared with other searches; every search polls it and only looks for solutions up to that length.
+	 */
+	interface Solutions {
+		/**
+		 * @return the maximal length of the solutions still of interest; less than 0 stops the search
+		 */
+		int bound();
+
+		/**
+		 * Called for every solution within the bound of the search, which may already be above {@link #bound()}.
+		 * 
+		 * @param ax
+		 *          the axes of the moves
+		 * @param po
+		 *          the powers of the moves
+		 * @return the maximal length of further solutions; less than 0 stops the search
+		 */
+		int found(int[] ax, int[] po, int length, int depthPhase1);
+	}
 
-	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	// generate the solution string from the array data
-	static String solutionToString(int length) {
-		String s = "";
-		for (int i = 0; i < length; i++) {
-			switch (ax[i]) {
-			case 0:
-				s += "U";
-				break;
-			case 1:
-				s += "R";
-				break;
-			case 2:
-				s += "F";
-				break;
-			case 3:
-				s += "D";
-				break;
-			case 4:
-				s += "L";
-				break;
-			case 5:
-				s += "B";
-				break;
-			}
-			switch (po[i]) {
-			case 1:
-				s += " ";
-				break;
-			case 2:
-				s += "2 ";
-				break;
-			case 3:
-				s += "' ";
-				break;
+	/**
+	 * Creates a search context with its own IDA* stacks. It can be reused for any number of consecutive solves.
+	 */
+	public Search() {
+		this(Phase1Pruning.SLICE_FLIP_TWIST);
+	}
 
-			}
-		}
-		return s;
-	};
+	/**
+	 * Creates a search context which prunes phase 1 with the given tables.
+	 */
+	public Search(Phase1Pruning phase1Pruning) {
+		this.phase1Pruning = phase1Pruning;
+	}
 
-	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-	// generate the solution string from the array data including a separator between phase1 and phase2 moves
-	static String solutionToString(int length, int depthPhase1) {
-		String s = "";
-		for (int i = 0; i < length; i++) {
-			switch (ax[i]) {
-			case 0:
-				s += "U";
-				break;
-			case 1:
-				s += "R";
-				break;
-			case 2:
-				s += "F";
-				break;
-			case 3:
-				s += "D";
-				break;
-			case 4:
-				s += "L";
-				break;
-			case 5:
-				s += "B";
-				break;
-			}
-			switch (po[i]) {
-			case 1:
-				s += " ";
-				break;
-			case 2:
-				s += "2 ";
-				break;
-			case 3:
-				s += "' ";
-				break;
+	/**
+	 * @return the number of search nodes generated in phase 1 and phase 2 by the last solve of this context
+	 */
+	public long getNodeCount() {
+		return nodes;
+	}
 
-			}
-			if (i == depthPhase1 - 1)
-				s += ". ";
-		}
-		return s;
-	};
+	/**
+	 * @return the counters of the last solve of this context; {@link SearchStats#snapshot()} sums them over all solves
+	 */
+	public SearchStats getStats() {
+		return stats.copy();
+	}
 
 	/**
 	 * Computes the solver string for a given cube.
+	 * <p>
+	 * Each call runs in a fresh {@link Search} context, so this method may be called from several threads at once.
 	 * 
 	 * @param facelets
 	 *          is the cube definition string, see {@link Facelet} for the format.
@@ -133,31 +155,105 @@ public class Search {
 	 *         Error 5: Twist error: One corner has to be twisted<br>
 	 *         Error 6: Parity error: Two corners or two edges have to be exchanged<br>
 	 *         Error 7: No solution exists for the given maxDepth<br>
-	 *         Error 8: Timeout, no solution within given time
+	 *         Error 8: Timeout, no solution within given time<br>
+	 *         Error 9: The calling thread was interrupted
 	 */
 	public static String solution(String facelets, int maxDepth, long timeOut, boolean useSeparator) {
+		return new Search().solve(facelets, maxDepth, timeOut, useSeparator);
+	}
+
+	/**
+	 * Computes the solver string for a given cube using the stacks of this search context. The parameters and the
+	 * returned string are the same as for {@link #solution(String, int, long, boolean)}.
+	 */
+	public String solve(String facelets, int maxDepth, long timeOut, boolean useSeparator) {
+		return solve(facelets, maxDepth, timeOut).toString(useSeparator);
+	}
+
+	/**
+	 * Computes the solution for a given cube using the stacks of this search context. The parameters are the same as
+	 * for {@link #solution(String, int, long, boolean)}; no string is generated unless the caller asks the result for
+	 * it.
+	 * 
+	 * @return the moves of the solution or the reason why there is none, see {@link Solution.Status}
+	 */
+	public Solution solve(String facelets, int maxDepth, long timeOut) {
+		return solveUntil(facelets, maxDepth, System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOut), null);
+	}
+
+	/**
+	 * Computes the solution for a given cube using the stacks of this search context, until a deadline or a
+	 * cancellation. Both are checked every few thousand nodes in phase 1 and in phase 2, so the search returns within
+	 * a fraction of a millisecond.
+	 * 
+	 * @param facelets
+	 *          is the cube definition string, see {@link Facelet} for the format.
+	 * @param maxDepth
+	 *          the maximal allowed maneuver length, see {@link #solution(String, int, long, boolean)}.
+	 * @param deadline
+	 *          the value of {@link System#nanoTime()} at which the search stops with {@link Solution.Status#TIMEOUT}.
+	 * @param cancelled
+	 *          stops the search with {@link Solution.Status#CANCELLED} once it is set; may be null. The search also
+	 *          stops with CANCELLED if the calling thread is interrupted, and leaves the interrupt status set.
+	 * @return the moves of the solution or the reason why there is none, see {@link Solution.Status}
+	 */
+	public Solution solveUntil(String facelets, int maxDepth, long deadline, AtomicBoolean cancelled) {
 		int s;
+		if ((s = parser.verify(facelets)) != 0)
+			return new Solution(Solution.Status.forCode(s), 0, 0);
 
-		// +++++++++++++++++++++check for wrong input +++++++++++++++++++++++++++++
-		int[] count = new int[6];
-		try {
-			for (int i = 0; i < 54; i++)
-				count[Color.valueOf(facelets.substring(i, i + 1)).ordinal()]++;
-		} catch (Exception e) {
-			return "Error 1";
-		}
-		for (int i = 0; i < 6; i++)
-			if (count[i] != 9)
-				return "Error 1";
+		return solve(parser.cc, maxDepth, deadline, cancelled, null);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Search a verified cube. Without solutions, return the first solution found. Otherwise pass every solution to
+	// solutions and go on with the bound it returns until no shorter solution exists; then return NO_SOLUTION.
+	Solution solve(CubieCube cc, int maxDepth, long deadline, AtomicBoolean cancelled, Solutions solutions) {
+		long[] counts = stats.counts;
+		Arrays.fill(counts, 0);
+		iteration = 1;
+		phase1Counted = 0;
+		Solution solution = search(cc, maxDepth, deadline, cancelled, solutions);
+		countPhase1Nodes();
+		counts[SearchStats.SOLVES] = 1;
+		counts[SearchStats.PHASE1_NANOS] = solution.getNanos() - counts[SearchStats.PHASE2_NANOS];
+		stats.addToTotals();
+		return solution;
+	}
 
-		FaceCube fc = new FaceCube(facelets);
-		CubieCube cc = fc.toCubieCube();
-		if ((s = cc.verify()) != 0)
-			return "Error " + Math.abs(s);
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Attribute the phase 1 nodes generated since the last call to the current iteration.
+	private void countPhase1Nodes() {
+		long[] counts = stats.counts;
+		long phase1 = nodes - counts[SearchStats.PHASE2_NODES];
+		counts[SearchStats.PHASE1_NODES + iteration] += phase1 - phase1Counted;
+		phase1Counted = phase1;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The two-phase search behind solve.
+	private Solution search(CubieCube cc, int maxDepth, long deadline, AtomicBoolean cancelled, Solutions solutions) {
+		int s;
+		long tNanos = System.nanoTime();
+		this.deadline = deadline;
+		this.cancelled = cancelled;
+		stop = null;
 
 		// +++++++++++++++++++++++ initialization +++++++++++++++++++++++++++++++++
 		CoordCube c = new CoordCube(cc);
-
+		boolean symmetric = phase1Pruning == Phase1Pruning.FLIPSLICE_TWIST;
+		if (symmetric && CoordCube.FlipSlice_Twist_Prun == null)
+			throw new IllegalStateException("The symmetry reduced phase 1 pruning table has not been loaded");
+		// the volatile fill depths first, so that the tables assigned before them are seen, see CoordCube
+		sliceFlipFill = CoordCube.Slice_Flip_Fill;
+		sliceTwistFill = CoordCube.Slice_Twist_Fill;
+		URFtoDLFFill = CoordCube.Slice_URFtoDLF_Parity_Fill;
+		URtoDFFill = CoordCube.Slice_URtoDF_Parity_Fill;
+		phase2Mod3 = CoordCube.Slice_URFtoDLF_Parity_Prun3 != null && CoordCube.Slice_URtoDF_Parity_Prun3 != null;
+		if (sliceFlipFill < 0 || sliceTwistFill < 0 || (!phase2Mod3 && (URFtoDLFFill < 0 || URtoDFFill < 0)))
+			throw new IllegalStateException("The pruning tables have not been loaded");
+
+		nodes = 0;
 		po[0] = 0;
 		ax[0] = 0;
 		flip[0] = c.flip;
@@ -168,13 +264,17 @@ public class Search {
 		FRtoBR[0] = c.FRtoBR;
 		URtoUL[0] = c.URtoUL;
 		UBtoDF[0] = c.UBtoDF;
+		validPhase2 = validUDEdges = 0;
+		if (symmetric)
+			distPhase1[0] = CoordCube.getFlipSliceTwistDepth(flip[0], slice[0], twist[0]);
 
 		minDistPhase1[1] = 1;// else failure for depth=1, n=0
 		int mv = 0, n = 0;
 		boolean busy = false;
 		int depthPhase1 = 1;
 
-		long tStart = System.currentTimeMillis();
+		if (solutions != null)
+			maxDepth = Math.min(maxDepth, solutions.bound());
 
 		// +++++++++++++++++++ Main loop ++++++++++++++++++++++++++++++++++++++++++
 		do {
@@ -190,14 +290,15 @@ public class Search {
 					do {// increment axis
 						if (++ax[n] > 5) {
 
-							if (System.currentTimeMillis() - tStart > timeOut << 10)
-								return "Error 8";
+							if (solutions != null && (maxDepth = Math.min(maxDepth, solutions.bound())) < depthPhase1)
+								return new Solution(Solution.Status.NO_SOLUTION, nodes, System.nanoTime() - tNanos);
 
 							if (n == 0) {
 								if (depthPhase1 >= maxDepth)
-									return "Error 7";
+									return new Solution(Solution.Status.NO_SOLUTION, nodes, System.nanoTime() - tNanos);
 								else {
-									depthPhase1++;
+									countPhase1Nodes();
+									iteration = ++depthPhase1;
 									ax[n] = 0;
 									po[n] = 1;
 									busy = false;
@@ -221,21 +322,37 @@ public class Search {
 			// +++++++++++++ compute new coordinates and new minDistPhase1 ++++++++++
 			// if minDistPhase1 =0, the H subgroup is reached
 			mv = 3 * ax[n] + po[n] - 1;
-			flip[n + 1] = CoordCube.flipMove[flip[n]][mv];
-			twist[n + 1] = CoordCube.twistMove[twist[n]][mv];
-			slice[n + 1] = CoordCube.FRtoBR_Move[slice[n] * 24][mv] / 24;
-			minDistPhase1[n + 1] = Math.max(CoordCube.getPruning(CoordCube.Slice_Flip_Prun, CoordCube.N_SLICE1 * flip[n + 1]
-					+ slice[n + 1]), CoordCube.getPruning(CoordCube.Slice_Twist_Prun, CoordCube.N_SLICE1 * twist[n + 1]
-					+ slice[n + 1]));
+			if ((++nodes & (CHECK_NODES - 1)) == 0 && stopped())
+				return new Solution(stop, nodes, System.nanoTime() - tNanos);
+			flip[n + 1] = CoordCube.flipMove.get(CoordCube.N_MOVE * flip[n] + mv);
+			twist[n + 1] = CoordCube.twistMove.get(CoordCube.N_MOVE * twist[n] + mv);
+			slice[n + 1] = CoordCube.FRtoBR_Move.get(CoordCube.N_MOVE * 24 * slice[n] + mv) / 24;
+			if (symmetric)
+				minDistPhase1[n + 1] = distPhase1[n + 1] = CoordCube.getFlipSliceTwistDepth(distPhase1[n], flip[n + 1],
+						slice[n + 1], twist[n + 1]);
+			else
+				minDistPhase1[n + 1] = Math.max(CoordCube.getPruning(CoordCube.Slice_Flip_Prun, CoordCube.N_SLICE1
+						* flip[n + 1] + slice[n + 1], sliceFlipFill), CoordCube.getPruning(CoordCube.Slice_Twist_Prun,
+						CoordCube.N_SLICE1 * twist[n + 1] + slice[n + 1], sliceTwistFill));
 			// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 
 			if (minDistPhase1[n + 1] == 0 && n >= depthPhase1 - 5) {
 				minDistPhase1[n + 1] = 10;// instead of 10 any value >5 is possible
+				stats.counts[SearchStats.SUBGROUP_NODES]++;
 				if (n == depthPhase1 - 1 && (s = totalDepth(depthPhase1, maxDepth)) >= 0) {
 					if (s == depthPhase1
-							|| (ax[depthPhase1 - 1] != ax[depthPhase1] && ax[depthPhase1 - 1] != ax[depthPhase1] + 3))
-						return useSeparator ? solutionToString(s, depthPhase1) : solutionToString(s);
-				}
+							|| (ax[depthPhase1 - 1] != ax[depthPhase1] && ax[depthPhase1 - 1] != ax[depthPhase1] + 3)) {
+						if (solutions == null) {
+							byte[] moves = new byte[s];
+							for (int i = 0; i < s; i++)
+								moves[i] = (byte) (3 * ax[i] + po[i] - 1);
+							return new Solution(moves, depthPhase1, nodes, System.nanoTime() - tNanos);
+						}
+						if ((maxDepth = Math.min(s - 1, solutions.found(ax, po, s, depthPhase1))) < depthPhase1)
+							return new Solution(Solution.Status.NO_SOLUTION, nodes, System.nanoTime() - tNanos);
+					}
+				} else if (stop != null)
+					return new Solution(stop, nodes, System.nanoTime() - tNanos);
 
 			}
 		} while (true);
@@ -243,35 +360,75 @@ public class Search {
 
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Apply phase2 of algorithm and return the combined phase1 and phase2 depth. In phase2, only the moves
-	// U,D,R2,F2,L2 and B2 are allowed.
-	static int totalDepth(int depthPhase1, int maxDepth) {
+	// U,D,R2,F2,L2 and B2 are allowed. Returns -1 if there is no solution within maxDepth or if the search was stopped.
+	private int totalDepth(int depthPhase1, int maxDepth) {
 		int mv = 0, d1 = 0, d2 = 0;
+		long[] counts = stats.counts;
+		counts[SearchStats.PHASE2_ATTEMPTS]++;
 		int maxDepthPhase2 = Math.min(10, maxDepth - depthPhase1);// Allow only max 10 moves in phase2
-		for (int i = 0; i < depthPhase1; i++) {
-			mv = 3 * ax[i] + po[i] - 1;
-			URFtoDLF[i + 1] = CoordCube.URFtoDLF_Move[URFtoDLF[i]][mv];
-			FRtoBR[i + 1] = CoordCube.FRtoBR_Move[FRtoBR[i]][mv];
-			parity[i + 1] = CoordCube.parityMove[parity[i]][mv];
-		}
 
-		if ((d1 = CoordCube.getPruning(CoordCube.Slice_URFtoDLF_Parity_Prun,
-				(CoordCube.N_SLICE2 * URFtoDLF[depthPhase1] + FRtoBR[depthPhase1]) * 2 + parity[depthPhase1])) > maxDepthPhase2)
+		// only apply the moves from the first one that differs from the last call on
+		int same = 0;
+		while (same < validPhase2 && phase1Moves[same] == 3 * ax[same] + po[same] - 1)
+			same++;
+		validPhase2 = same;
+		validUDEdges = Math.min(validUDEdges, same);
+		for (int i = validPhase2; i < depthPhase1; i++) {
+			mv = phase1Moves[i] = 3 * ax[i] + po[i] - 1;
+			URFtoDLF[i + 1] = CoordCube.URFtoDLF_Move.get(CoordCube.N_MOVE * URFtoDLF[i] + mv);
+			FRtoBR[i + 1] = CoordCube.FRtoBR_Move.get(CoordCube.N_MOVE * FRtoBR[i] + mv);
+			parity[i + 1] = CoordCube.parityMove[CoordCube.N_MOVE * parity[i] + mv];
+		}
+		validPhase2 = depthPhase1;
+
+		if (phase2Mod3)
+			d1 = distURFtoDLF[depthPhase1] = CoordCube.getPhase2Depth(CoordCube.Slice_URFtoDLF_Parity_Prun3,
+					CoordCube.URFtoDLF_Move, URFtoDLF[depthPhase1], FRtoBR[depthPhase1], parity[depthPhase1], maxDepthPhase2);
+		else
+			d1 = CoordCube.getPruning(CoordCube.Slice_URFtoDLF_Parity_Prun, (CoordCube.N_SLICE2 * URFtoDLF[depthPhase1]
+					+ FRtoBR[depthPhase1]) * 2 + parity[depthPhase1], URFtoDLFFill);
+		if (d1 > maxDepthPhase2) {
+			counts[SearchStats.PRUNED_URFtoDLF]++;
 			return -1;
-
-		for (int i = 0; i < depthPhase1; i++) {
-			mv = 3 * ax[i] + po[i] - 1;
-			URtoUL[i + 1] = CoordCube.URtoUL_Move[URtoUL[i]][mv];
-			UBtoDF[i + 1] = CoordCube.UBtoDF_Move[UBtoDF[i]][mv];
 		}
-		URtoDF[depthPhase1] = CoordCube.MergeURtoULandUBtoDF[URtoUL[depthPhase1]][UBtoDF[depthPhase1]];
 
-		if ((d2 = CoordCube.getPruning(CoordCube.Slice_URtoDF_Parity_Prun,
-				(CoordCube.N_SLICE2 * URtoDF[depthPhase1] + FRtoBR[depthPhase1]) * 2 + parity[depthPhase1])) > maxDepthPhase2)
+		for (int i = validUDEdges; i < depthPhase1; i++) {
+			mv = phase1Moves[i];
+			URtoUL[i + 1] = CoordCube.URtoUL_Move.get(CoordCube.N_MOVE * URtoUL[i] + mv);
+			UBtoDF[i + 1] = CoordCube.UBtoDF_Move.get(CoordCube.N_MOVE * UBtoDF[i] + mv);
+		}
+		validUDEdges = depthPhase1;
+		URtoDF[depthPhase1] = CoordCube.MergeURtoULandUBtoDF.get(336 * URtoUL[depthPhase1] + UBtoDF[depthPhase1]);
+
+		if (phase2Mod3)
+			d2 = distURtoDF[depthPhase1] = CoordCube.getPhase2Depth(CoordCube.Slice_URtoDF_Parity_Prun3,
+					CoordCube.URtoDF_Move, URtoDF[depthPhase1], FRtoBR[depthPhase1], parity[depthPhase1], maxDepthPhase2);
+		else
+			d2 = CoordCube.getPruning(CoordCube.Slice_URtoDF_Parity_Prun, (CoordCube.N_SLICE2 * URtoDF[depthPhase1]
+					+ FRtoBR[depthPhase1]) * 2 + parity[depthPhase1], URtoDFFill);
+		if (d2 > maxDepthPhase2) {
+			counts[SearchStats.PRUNED_URtoDF]++;
 			return -1;
+		}
 
 		if ((minDistPhase2[depthPhase1] = Math.max(d1, d2)) == 0)// already solved
 			return depthPhase1;
 
+		counts[SearchStats.PHASE2_SEARCHES]++;
+		long tStart = System.nanoTime();
+		long nodesBefore = nodes;
+		int depth = searchPhase2(depthPhase1, maxDepthPhase2);
+		counts[SearchStats.PHASE2_NODES] += nodes - nodesBefore;
+		counts[SearchStats.PHASE2_NANOS] += System.nanoTime() - tStart;
+		return depth;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The IDA* search of phase2 from the phase2 coordinates and distance at depthPhase1. Returns the combined phase1 and
+	// phase2 depth or -1 like totalDepth.
+	private int searchPhase2(int depthPhase1, int maxDepthPhase2) {
+		int mv;
+
 		// now set up search
 
 		int depthPhase2 = 1;
@@ -325,20 +482,38 @@ public class Search {
 			} while (busy);
 			// +++++++++++++ compute new coordinates and new minDist ++++++++++
 			mv = 3 * ax[n] + po[n] - 1;
-
-			URFtoDLF[n + 1] = CoordCube.URFtoDLF_Move[URFtoDLF[n]][mv];
-			FRtoBR[n + 1] = CoordCube.FRtoBR_Move[FRtoBR[n]][mv];
-			parity[n + 1] = CoordCube.parityMove[parity[n]][mv];
-			URtoDF[n + 1] = CoordCube.URtoDF_Move[URtoDF[n]][mv];
-
-			minDistPhase2[n + 1] = Math.max(CoordCube.getPruning(CoordCube.Slice_URtoDF_Parity_Prun, (CoordCube.N_SLICE2
-					* URtoDF[n + 1] + FRtoBR[n + 1])
-					* 2 + parity[n + 1]), CoordCube.getPruning(CoordCube.Slice_URFtoDLF_Parity_Prun, (CoordCube.N_SLICE2
-					* URFtoDLF[n + 1] + FRtoBR[n + 1])
-					* 2 + parity[n + 1]));
+			if ((++nodes & (CHECK_NODES - 1)) == 0 && stopped())
+				return -1;
+
+			URFtoDLF[n + 1] = CoordCube.URFtoDLF_Move.get(CoordCube.N_MOVE * URFtoDLF[n] + mv);
+			FRtoBR[n + 1] = CoordCube.FRtoBR_Move.get(CoordCube.N_MOVE * FRtoBR[n] + mv);
+			parity[n + 1] = CoordCube.parityMove[CoordCube.N_MOVE * parity[n] + mv];
+			URtoDF[n + 1] = CoordCube.URtoDF_Move.get(CoordCube.N_MOVE * URtoDF[n] + mv);
+
+			if (phase2Mod3) {
+				distURtoDF[n + 1] = CoordCube.getPhase2Depth(distURtoDF[n], CoordCube.Slice_URtoDF_Parity_Prun3,
+						(CoordCube.N_SLICE2 * URtoDF[n + 1] + FRtoBR[n + 1]) * 2 + parity[n + 1]);
+				distURFtoDLF[n + 1] = CoordCube.getPhase2Depth(distURFtoDLF[n], CoordCube.Slice_URFtoDLF_Parity_Prun3,
+						(CoordCube.N_SLICE2 * URFtoDLF[n + 1] + FRtoBR[n + 1]) * 2 + parity[n + 1]);
+				minDistPhase2[n + 1] = Math.max(distURtoDF[n + 1], distURFtoDLF[n + 1]);
+			} else
+				minDistPhase2[n + 1] = Math.max(CoordCube.getPruning(CoordCube.Slice_URtoDF_Parity_Prun, (CoordCube.N_SLICE2
+						* URtoDF[n + 1] + FRtoBR[n + 1])
+						* 2 + parity[n + 1], URtoDFFill), CoordCube.getPruning(CoordCube.Slice_URFtoDLF_Parity_Prun,
+						(CoordCube.N_SLICE2 * URFtoDLF[n + 1] + FRtoBR[n + 1]) * 2 + parity[n + 1], URFtoDLFFill));
 			// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 
 		} while (minDistPhase2[n + 1] != 0);
 		return depthPhase1 + depthPhase2;
 	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Check for an interrupt, the cancellation and the deadline. Sets stop and returns true if the search has to end.
+	private boolean stopped() {
+		if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.get()))
+			stop = Solution.Status.CANCELLED;
+		else if (System.nanoTime() - deadline > 0)
+			stop = Solution.Status.TIMEOUT;
+		return stop != null;
+	}
 }
@@ -0,0 +1,189 @@
+package org.kociemba.twophase;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Counters of the two-phase {@link Search}, either of a single solve, see {@link Search#getStats()}, or summed over all
+ * solves of all search contexts since the start or the last {@link #reset()}, see {@link #snapshot()}.
+ * <p>
+ * A search context counts into its own plain fields and only at the end of a solve adds them to the shared atomic
+ * totals, so the counters cost nothing per node and can stay on in production. Phase 1 nodes are attributed to the
+ * phase 1 depth of the IDA* iteration that generated them. Every phase 1 node at the full phase 1 depth that reaches
+ * the subgroup H = &lt;U,D,R2,F2,L2,B2&gt; starts a phase 2 attempt, which ends at the first or the second phase 2
+ * pruning check or goes on into the phase 2 IDA* search. The phase 2 time covers those searches; everything else counts
+ * as phase 1 time.
+ */
+public class SearchStats {
+
+	static final int MAX_DEPTH = 31; // the size of the stacks of Search
+
+	// The counters in counts[].
+	static final int SOLVES = 0;
+	static final int SUBGROUP_NODES = 1;
+	static final int PHASE2_ATTEMPTS = 2;
+	static final int PRUNED_URFtoDLF = 3;
+	static final int PRUNED_URtoDF = 4;
+	static final int PHASE2_SEARCHES = 5;
+	static final int PHASE2_NODES = 6;
+	static final int PHASE1_NANOS = 7;
+	static final int PHASE2_NANOS = 8;
+	static final int PHASE1_NODES = 9; // the first of MAX_DEPTH counters, one per phase 1 depth
+	static final int N_COUNTS = PHASE1_NODES + MAX_DEPTH;
+
+	private static final AtomicLongArray totals = new AtomicLongArray(N_COUNTS);
+
+	final long[] counts = new long[N_COUNTS];
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	SearchStats() {
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private SearchStats(long[] counts) {
+		System.arraycopy(counts, 0, this.counts, 0, N_COUNTS);
+	}
+
+	/**
+	 * Returns the sum of the counters of all solves since the start or the last {@link #reset()}. The counters are read
+	 * one after the other, so a snapshot taken during a solve may contain only a part of the counters of that solve.
+	 */
+	public static SearchStats snapshot() {
+		SearchStats s = new SearchStats();
+		for (int i = 0; i < N_COUNTS; i++)
+			s.counts[i] = totals.get(i);
+		return s;
+	}
+
+	/**
+	 * Sets the totals returned by {@link #snapshot()} back to zero.
+	 */
+	public static void reset() {
+		for (int i = 0; i < N_COUNTS; i++)
+			totals.set(i, 0);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Add the counters of a finished solve to the totals.
+	void addToTotals() {
+		for (int i = 0; i < N_COUNTS; i++)
+			if (counts[i] != 0)
+				totals.addAndGet(i, counts[i]);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	SearchStats copy() {
+		return new SearchStats(counts);
+	}
+
+	/**
+	 * Returns the counters of this snapshot minus the counters of an earlier one, e.g. the totals of a benchmark run.
+	 */
+	public SearchStats minus(SearchStats earlier) {
+		SearchStats s = new SearchStats(counts);
+		for (int i = 0; i < N_COUNTS; i++)
+			s.counts[i] -= earlier.counts[i];
+		return s;
+	}
+
+	/**
+	 * @return the number of solves counted
+	 */
+	public long getSolves() {
+		return counts[SOLVES];
+	}
+
+	/**
+	 * @return the number of phase 1 nodes generated by the IDA* iteration with the given phase 1 depth
+	 */
+	public long getPhase1Nodes(int depthPhase1) {
+		return depthPhase1 >= 0 && depthPhase1 < MAX_DEPTH ? counts[PHASE1_NODES + depthPhase1] : 0;
+	}
+
+	/**
+	 * @return the number of phase 1 nodes generated by all iterations
+	 */
+	public long getPhase1Nodes() {
+		long sum = 0;
+		for (int d = 0; d < MAX_DEPTH; d++)
+			sum += counts[PHASE1_NODES + d];
+		return sum;
+	}
+
+	/**
+	 * @return the number of phase 1 nodes within the last five moves of the phase 1 depth that reached the subgroup H
+	 */
+	public long getSubgroupNodes() {
+		return counts[SUBGROUP_NODES];
+	}
+
+	/**
+	 * @return the number of phase 2 attempts, one for every phase 1 leaf in H at the full phase 1 depth
+	 */
+	public long getPhase2Attempts() {
+		return counts[PHASE2_ATTEMPTS];
+	}
+
+	/**
+	 * @return the number of phase 2 attempts rejected by the first pruning check, on the corner permutation
+	 */
+	public long getPrunedByCorners() {
+		return counts[PRUNED_URFtoDLF];
+	}
+
+	/**
+	 * @return the number of phase 2 attempts rejected by the second pruning check, on the permutation of the U and D
+	 *         edges
+	 */
+	public long getPrunedByEdges() {
+		return counts[PRUNED_URtoDF];
+	}
+
+	/**
+	 * @return the number of phase 2 attempts that passed both pruning checks and searched phase 2
+	 */
+	public long getPhase2Searches() {
+		return counts[PHASE2_SEARCHES];
+	}
+
+	/**
+	 * @return the number of nodes generated by the phase 2 searches
+	 */
+	public long getPhase2Nodes() {
+		return counts[PHASE2_NODES];
+	}
+
+	/**
+	 * @return the time spent in phase 1, including the phase 2 pruning checks, in nanoseconds
+	 */
+	public long getPhase1Nanos() {
+		return counts[PHASE1_NANOS];
+	}
+
+	/**
+	 * @return the time spent in the phase 2 searches in nanoseconds
+	 */
+	public long getPhase2Nanos() {
+		return counts[PHASE2_NANOS];
+	}
+
+	/**
+	 * @return a one line report of all counters, the phase 1 nodes as depth:nodes
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append("solves ").append(getSolves()).append(", phase 1 nodes");
+		for (int d = 0; d < MAX_DEPTH; d++)
+			if (counts[PHASE1_NODES + d] != 0)
+				s.append(' ').append(d).append(':').append(counts[PHASE1_NODES + d]);
+		s.append(", in H ").append(getSubgroupNodes());
+		s.append(", phase 2 attempts ").append(getPhase2Attempts());
+		s.append(" (pruned by corners ").append(getPrunedByCorners());
+		s.append(", by edges ").append(getPrunedByEdges());
+		s.append(", searched ").append(getPhase2Searches());
+		s.append("), phase 2 nodes ").append(getPhase2Nodes());
+		s.append(String.format(", phase 1 %.1f ms, phase 2 %.1f ms", getPhase1Nanos() / 1e6, getPhase2Nanos() / 1e6));
+		return s.toString();
+	}
+}
@@ -0,0 +1,192 @@
+package org.kociemba.twophase;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * The result of a solve: the moves of the solution, packed into one byte each, or the reason why there is none.
+ * <p>
+ * A move is stored as 3 * axis + power - 1, with the axes U, R, F, D, L, B numbered from 0 to 5 and the powers 1, 2
+ * and 3 for a clockwise quarter turn, a half turn and a counter clockwise quarter turn. The solver string of
+ * {@link Search#solution(String, int, long, boolean)} is only generated by {@link #toString(boolean)}.
+ */
+public final class Solution {
+
+	/**
+	 * The outcome of a solve. The codes are those of the error strings of
+	 * {@link Search#solution(String, int, long, boolean)}.
+	 */
+	public enum Status {
+		/** The cube was solved. */
+		SOLVED,
+		/** Error 1: There is not exactly one facelet of each colour */
+		INVALID_FACELETS,
+		/** Error 2: Not all 12 edges exist exactly once */
+		INVALID_EDGES,
+		/** Error 3: Flip error: One edge has to be flipped */
+		FLIPPED_EDGE,
+		/** Error 4: Not all corners exist exactly once */
+		INVALID_CORNERS,
+		/** Error 5: Twist error: One corner has to be twisted */
+		TWISTED_CORNER,
+		/** Error 6: Parity error: Two corners or two edges have to be exchanged */
+		PARITY,
+		/** Error 7: No solution exists for the given maxDepth */
+		NO_SOLUTION,
+		/** Error 8: Timeout, no solution within given time */
+		TIMEOUT,
+		/** Error 9: The search was cancelled or its thread was interrupted */
+		CANCELLED;
+
+		/**
+		 * @return 0 for SOLVED, otherwise the number of the error string
+		 */
+		public int getCode() {
+			return ordinal();
+		}
+
+		// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+		static Status forCode(int code) {
+			return values()[Math.abs(code)];
+		}
+	}
+
+	private static final byte[] NO_MOVES = {};
+
+	private final Status status;
+	private final byte[] moves; // 3 * axis + power - 1
+	private final int phase1Length;
+	private final long nodes;
+	private final long nanos;
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	Solution(byte[] moves, int phase1Length, long nodes, long nanos) {
+		this.status = Status.SOLVED;
+		this.moves = moves;
+		this.phase1Length = phase1Length;
+		this.nodes = nodes;
+		this.nanos = nanos;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	Solution(Status status, long nodes, long nanos) {
+		this.status = status;
+		this.moves = NO_MOVES;
+		this.phase1Length = 0;
+		this.nodes = nodes;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return SOLVED or the reason why there is no solution
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return true if the solve found a solution
+	 */
+	public boolean isSolved() {
+		return status == Status.SOLVED;
+	}
+
+	/**
+	 * @return the number of moves, 0 if there is no solution
+	 */
+	public int length() {
+		return moves.length;
+	}
+
+	/**
+	 * @return the i-th move as 3 * axis + power - 1
+	 */
+	public int getMove(int i) {
+		return moves[i];
+	}
+
+	/**
+	 * @return the axis of the i-th move: 0 to 5 for U, R, F, D, L, B
+	 */
+	public int getAxis(int i) {
+		return moves[i] / 3;
+	}
+
+	/**
+	 * @return the face of the i-th move: one of 'U', 'R', 'F', 'D', 'L', 'B'
+	 */
+	public char getFace(int i) {
+		return "URFDLB".charAt(moves[i] / 3);
+	}
+
+	/**
+	 * @return the power of the i-th move: 1 for clockwise, 2 for a half turn, 3 for counter clockwise
+	 */
+	public int getPower(int i) {
+		return moves[i] % 3 + 1;
+	}
+
+	/**
+	 * @return the number of phase 1 moves; the moves from this index on are the phase 2 moves
+	 */
+	public int getPhase1Length() {
+		return phase1Length;
+	}
+
+	/**
+	 * @return the number of search nodes generated by the solve
+	 */
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * @return the computing time of the solve in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return the solver string without separator or the error string, see
+	 *         {@link Search#solution(String, int, long, boolean)}
+	 */
+	@Override
+	public String toString() {
+		return toString(false);
+	}
+
+	/**
+	 * @param useSeparator
+	 *          determines if a " . " separates the phase1 and phase2 parts of the solver string
+	 * @return the solver string or the error string, see {@link Search#solution(String, int, long, boolean)}
+	 */
+	public String toString(boolean useSeparator) {
+		if (status != Status.SOLVED)
+			return "Error " + status.getCode();
+		return toString(moves, useSeparator ? phase1Length : -1);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// generate the solution string from the moves, with a separator after the first separator moves if separator >= 0
+	static String toString(byte[] moves, int separator) {
+		StringBuilder s = new StringBuilder(3 * moves.length + 2);
+		for (int i = 0; i < moves.length; i++) {
+			if (i == separator)
+				s.append(". ");
+			s.append("URFDLB".charAt(moves[i] / 3));
+			switch (moves[i] % 3) {
+			case 0:
+				s.append(' ');
+				break;
+			case 1:
+				s.append("2 ");
+				break;
+			case 2:
+				s.append("' ");
+				break;
+			}
+		}
+		if (separator == moves.length)
+			s.append(". ");
+		return s.toString();
+	}
+}
@@ -0,0 +1,278 @@
+package org.kociemba.twophase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * A size bounded cache of solutions in front of {@link Search}, shared by any number of threads.
+ * <p>
+ * A cube is stored under a canonical key: the smallest encoding of corner permutation, twist, edge permutation and flip
+ * over all cubes S * cube * S^-1 and S * cube^-1 * S^-1 for the 48 symmetries S of {@link Symmetry}. All cubes of such
+ * a class have solutions of the same length, so the cache holds the solution of the canonical cube and maps its moves
+ * back through the symmetry and the inversion on every hit. The 4.3 * 10^19 cube states do not fit into 64 bits, so
+ * the key consists of two longs.
+ * <p>
+ * The cache is set associative with WAYS entries per set; a new entry replaces the least recently used entry of its set.
+ * Entries are immutable apart from their time of last use, so a lookup never locks and a store only needs one
+ * compare-and-set. A hit writes no shared counter: the time of last use is System.nanoTime(), written only if the old
+ * one is more than {@link #TOUCH_NANOS} ago, and the hits are counted in one of several padded stripes, chosen by the
+ * thread. The canonical key is computed in cubes that every thread keeps for its next solve, so a hit
+ * allocates nothing but the returned solution.
+ */
+public class SolutionCache {
+
+	private static final int WAYS = 4; // entries per set
+	private static final long TOUCH_NANOS = 1000000; // resolution of the time of last use
+	private static final int HIT_STRIPES = 16; // hit counters, a power of 2
+	private static final int PADDING = 8; // longs per hit counter, one cache line
+
+	private static final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask; // number of sets - 1
+
+	private final AtomicLongArray hits = new AtomicLongArray(HIT_STRIPES * PADDING);
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a cache for at least the given number of solutions.
+	 */
+	public SolutionCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		int sets = 1;
+		while (sets * WAYS < capacity)
+			sets <<= 1;
+		entries = new AtomicReferenceArray<Entry>(sets * WAYS);
+		mask = sets - 1;
+	}
+
+	/**
+	 * Returns the cached solution of a cube as a solver string, see {@link #solve(Search, String, int, long)}. The
+	 * parameters and the returned string are the same as for {@link Search#solution(String, int, long, boolean)}. If
+	 * the cached solution belongs to the inverse cube, the separator stands between the inverted phase 2 moves and the
+	 * inverted phase 1 moves.
+	 *
+	 * @param search
+	 *          the search context of the calling thread
+	 */
+	public String solve(Search search, String facelets, int maxDepth, long timeOut, boolean useSeparator) {
+		return solve(search, facelets, maxDepth, timeOut).toString(useSeparator);
+	}
+
+	/**
+	 * Returns the cached solution of a cube if it has at most maxDepth moves, otherwise solves the cube with the given
+	 * search context and caches the solution. The parameters are the same as for
+	 * {@link Search#solution(String, int, long, boolean)}. If the cached solution belongs to the inverse cube, its
+	 * phase 1 moves are the inverted phase 2 moves, followed by the inverted phase 1 moves.
+	 *
+	 * @param search
+	 *          the search context of the calling thread
+	 * @return the moves of the solution or the reason why there is none, see {@link Solution.Status}; a solution from
+	 *         the cache has a node count of 0
+	 */
+	public Solution solve(Search search, String facelets, int maxDepth, long timeOut) {
+		long tStart = System.nanoTime();
+		int s;
+		Scratch scratch = scratches.get();
+		if ((s = scratch.parser.verify(facelets)) != 0)
+			return new Solution(Solution.Status.forCode(s), 0, 0);
+		CubieCube cc = scratch.parser.cc;
+		CubieCube inv = scratch.inv;
+		cc.invCubieCube(inv);
+
+		// +++++++++++++++++++++++++ canonical cube +++++++++++++++++++++++++++++++
+		CubieCube c = scratch.c;
+		long corners = Long.MAX_VALUE, edges = Long.MAX_VALUE;
+		int sym = 0;
+		boolean inverse = false;
+		for (int i = 0; i < 2; i++)
+			for (int k = 0; k < Symmetry.N_SYM_ALL; k++) {
+				conjugate(c, k, i == 0 ? cc : inv);
+				long cornersNew = (long) CoordCube.N_TWIST * c.getURFtoDLB() + c.getTwist();
+				if (cornersNew > corners)
+					continue;
+				long edgesNew = (long) CoordCube.N_FLIP * c.getURtoBR() + c.getFlip();
+				if (cornersNew == corners && edgesNew >= edges)
+					continue;
+				corners = cornersNew;
+				edges = edgesNew;
+				sym = k;
+				inverse = i == 1;
+			}
+
+		// +++++++++++++++++++++++++++++++ lookup +++++++++++++++++++++++++++++++++
+		int set = index(corners, edges);
+		Entry e = get(set, corners, edges);
+		if (e != null && e.moves.length <= maxDepth) {
+			long now = System.nanoTime();
+			if (now - e.lastUse > TOUCH_NANOS)
+				e.lastUse = now;
+			hits.incrementAndGet(((int) Thread.currentThread().getId() & HIT_STRIPES - 1) * PADDING);
+			return toSolution(e, sym, inverse, 0, System.nanoTime() - tStart);
+		}
+		misses.incrementAndGet();
+
+		// +++++++++++++++++++++++ solve the canonical cube +++++++++++++++++++++++
+		conjugate(c, sym, inverse ? inv : cc);
+		final Entry[] found = new Entry[1];
+		final long key1 = corners, key2 = edges;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeOut);
+		Solution result = search.solve(c, maxDepth, deadline, null, new Search.Solutions() {
+			@Override
+			public int bound() {
+				return found[0] == null ? Integer.MAX_VALUE : -1;
+			}
+
+			@Override
+			public int found(int[] ax, int[] po, int length, int depthPhase1) {
+				byte[] moves = new byte[length];
+				for (int i = 0; i < length; i++)
+					moves[i] = (byte) (3 * ax[i] + po[i] - 1);
+				found[0] = new Entry(key1, key2, moves, depthPhase1);
+				return -1;
+			}
+		});
+		if (found[0] == null)
+			return result;
+		put(set, found[0]);
+		return toSolution(found[0], sym, inverse, result.getNodeCount(), System.nanoTime() - tStart);
+	}
+
+	/**
+	 * @return the number of solves answered from the cache
+	 */
+	public long getHits() {
+		long n = 0;
+		for (int i = 0; i < HIT_STRIPES; i++)
+			n += hits.get(i * PADDING);
+		return n;
+	}
+
+	/**
+	 * @return the number of solves that had to search
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of solutions that were replaced by the solution of another cube
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return the maximal number of cached solutions
+	 */
+	public int getCapacity() {
+		return entries.length();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The parser and the cubes of one thread.
+	private static class Scratch {
+		final FaceletParser parser = new FaceletParser();
+		final CubieCube inv = new CubieCube(); // the inverse of the parsed cube
+		final CubieCube c = new CubieCube(); // a candidate for the canonical cube
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Set c to symCube[k] * cube * symCube[k]^-1.
+	private static void conjugate(CubieCube c, int k, CubieCube cube) {
+		CubieCube sc = Symmetry.symCube[k];
+		System.arraycopy(sc.cp, 0, c.cp, 0, 8);
+		System.arraycopy(sc.co, 0, c.co, 0, 8);
+		System.arraycopy(sc.ep, 0, c.ep, 0, 12);
+		System.arraycopy(sc.eo, 0, c.eo, 0, 12);
+		Symmetry.multiply(c, cube);
+		Symmetry.multiply(c, Symmetry.symCube[Symmetry.invIdx[k]]);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The solution of a canonical cube.
+	private static class Entry {
+		final long corners; // N_TWIST * URFtoDLB + twist
+		final long edges; // N_FLIP * URtoBR + flip
+		final byte[] moves; // 3 * axis + power - 1
+		final int depthPhase1;
+		volatile long lastUse; // System.nanoTime()
+
+		Entry(long corners, long edges, byte[] moves, int depthPhase1) {
+			this.corners = corners;
+			this.edges = edges;
+			this.moves = moves;
+			this.depthPhase1 = depthPhase1;
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The first entry of the set of a key.
+	private int index(long corners, long edges) {
+		long h = (corners * 0x9E3779B97F4A7C15L + edges) * 0xC2B2AE3D27D4EB4FL;
+		return ((int) (h >>> 32) & mask) * WAYS;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private Entry get(int set, long corners, long edges) {
+		for (int i = set; i < set + WAYS; i++) {
+			Entry e = entries.get(i);
+			if (e != null && e.corners == corners && e.edges == edges)
+				return e;
+		}
+		return null;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Store e in its set: in place of a longer solution of the same cube, in a free entry or in place of the least
+	// recently used entry. If another thread changes the entry at the same time, e is not stored.
+	private void put(int set, Entry e) {
+		e.lastUse = System.nanoTime();
+		int victim = -1;
+		Entry old = null;
+		for (int i = set; i < set + WAYS; i++) {
+			Entry x = entries.get(i);
+			if (x == null) {
+				if (victim < 0 || old != null) {
+					victim = i;
+					old = null;
+				}
+			} else if (x.corners == e.corners && x.edges == e.edges) {
+				if (x.moves.length > e.moves.length)
+					entries.compareAndSet(i, x, e);
+				return;
+			} else if (victim < 0 || (old != null && x.lastUse - old.lastUse < 0)) {
+				victim = i;
+				old = x;
+			}
+		}
+		if (entries.compareAndSet(victim, old, e) && old != null)
+			evictions.incrementAndGet();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The solution of the cube from the solution of the canonical cube symCube[sym] * cube * symCube[sym]^-1, or of
+	// symCube[sym] * cube^-1 * symCube[sym]^-1 if inverse is set.
+	private static Solution toSolution(Entry e, int sym, boolean inverse, long nodes, long nanos) {
+		int length = e.moves.length;
+		byte[] moves = new byte[length];
+		for (int i = 0; i < length; i++) {
+			int mv = Symmetry.moveConj[CoordCube.N_MOVE * Symmetry.invIdx[sym] + e.moves[i]];
+			if (inverse) // read backwards with inverted powers
+				moves[length - 1 - i] = (byte) (mv - mv % 3 + 2 - mv % 3);
+			else
+				moves[i] = (byte) mv;
+		}
+		return new Solution(moves, inverse ? length - e.depthPhase1 : e.depthPhase1, nodes, nanos);
+	}
+}
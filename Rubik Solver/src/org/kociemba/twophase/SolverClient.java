@@ -0,0 +1,204 @@
+package org.kociemba.twophase;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * A connection to a {@link SolverServer} on the same machine.
+ * <p>
+ * {@link #solve(CharSequence, int, long)} sends one cube and waits for its solution. To pipeline, send any number of
+ * cubes with {@link #submit(CharSequence, int, long)} and collect the replies with {@link #receive()}; the requests are
+ * buffered and sent together when a reply is awaited or the buffer is full. At most {@link SolverServer#MAX_IN_FLIGHT}
+ * requests may wait for their replies, so that the replies always fit into the socket buffers while the client sends.
+ * The server answers in the order in which the solves finish, so the replies carry the id of their request. A client
+ * is not thread safe.
+ */
+public class SolverClient implements Closeable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final SocketChannel channel;
+	private final ByteBuffer out = ByteBuffer.allocate(64 * SolverServer.REQUEST_SIZE);
+	private final ByteBuffer in = ByteBuffer.allocate(8192);
+	private int nextId;
+	private int inFlight; // requests without reply
+
+	/**
+	 * The reply to a solve request.
+	 */
+	public static final class Reply {
+		private final int id;
+		private final Solution solution;
+
+		Reply(int id, Solution solution) {
+			this.id = id;
+			this.solution = solution;
+		}
+
+		/**
+		 * @return the id that {@link SolverClient#submit(CharSequence, int, long)} returned for the request
+		 */
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * @return the solution; its node count and time are those of the solve on the server
+		 */
+		public Solution getSolution() {
+			return solution;
+		}
+	}
+
+	/**
+	 * Connects to the server on the given port of the loopback interface.
+	 */
+	public SolverClient(int port) throws IOException {
+		channel = SocketChannel.open(new InetSocketAddress(InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 }), port));
+		channel.socket().setTcpNoDelay(true);
+		in.flip();
+	}
+
+	/**
+	 * Queues a solve request. A string that is not a cube definition string, see {@link Facelet}, is answered with
+	 * {@link Solution.Status#INVALID_FACELETS}.
+	 *
+	 * @param maxDepth
+	 *          the maximal allowed maneuver length, 1 to 30, see {@link Search#solution(String, int, long, boolean)}
+	 * @param timeOutMillis
+	 *          the time the server may take from the arrival of the request to its reply, in milliseconds
+	 * @return the id of the request
+	 * @throws IllegalStateException
+	 *           if {@link SolverServer#MAX_IN_FLIGHT} requests wait for their replies
+	 */
+	public int submit(CharSequence facelets, int maxDepth, long timeOutMillis) throws IOException {
+		if (inFlight == SolverServer.MAX_IN_FLIGHT)
+			throw new IllegalStateException(inFlight + " requests wait for their replies");
+		if (maxDepth < 1 || maxDepth > 30 || timeOutMillis < 1)
+			throw new IllegalArgumentException("maxDepth " + maxDepth + " or timeOut " + timeOutMillis + " out of range");
+		if (out.remaining() < SolverServer.REQUEST_SIZE)
+			flush();
+		int id = nextId++;
+		out.putInt(id).put(SolverServer.OP_SOLVE).put((byte) maxDepth).putInt((int) Math.min(timeOutMillis,
+				Integer.MAX_VALUE));
+		boolean valid = facelets.length() == 54;
+		for (int i = 0; i < 54; i += 2)
+			out.put((byte) (color(facelets, i, valid) << 4 | color(facelets, i + 1, valid)));
+		inFlight++;
+		return id;
+	}
+
+	/**
+	 * Sends the queued requests and waits for the next reply.
+	 *
+	 * @throws IOException
+	 *           also if the solve of the request threw an exception on the server; the connection can still be used
+	 * @throws IllegalStateException
+	 *           if no request waits for its reply
+	 */
+	public Reply receive() throws IOException {
+		if (inFlight == 0)
+			throw new IllegalStateException("No request waits for a reply");
+		flush();
+		ensure(SolverServer.RESPONSE_HEADER);
+		int id = in.getInt();
+		int status = in.get();
+		int length = in.getShort();
+		ensure(length);
+		if (status == SolverServer.STATUS_SOLVE_FAILED) {
+			in.position(in.position() + length);
+			inFlight--;
+			throw new IOException("The solve of request " + id + " failed on the server");
+		}
+		if (status < 0 || status >= Solution.Status.values().length || length < SolverServer.SOLVE_PAYLOAD)
+			throw new IOException("Unexpected response status " + status);
+		int phase1Length = in.get();
+		long nodes = in.getLong();
+		long nanos = in.getLong();
+		byte[] moves = new byte[length - SolverServer.SOLVE_PAYLOAD];
+		in.get(moves);
+		inFlight--;
+		if (status != 0)
+			return new Reply(id, new Solution(Solution.Status.forCode(status), nodes, nanos));
+		return new Reply(id, new Solution(moves, phase1Length, nodes, nanos));
+	}
+
+	/**
+	 * Solves a single cube. The parameters are those of {@link #submit(CharSequence, int, long)}.
+	 *
+	 * @throws IllegalStateException
+	 *           if submitted requests still wait for their replies
+	 */
+	public Solution solve(CharSequence facelets, int maxDepth, long timeOutMillis) throws IOException {
+		if (inFlight != 0)
+			throw new IllegalStateException(inFlight + " requests wait for their replies");
+		submit(facelets, maxDepth, timeOutMillis);
+		return receive().getSolution();
+	}
+
+	/**
+	 * @return the counters of the server, see {@link SolverServer#getMetrics()}
+	 * @throws IllegalStateException
+	 *           if submitted requests still wait for their replies
+	 */
+	public String metrics() throws IOException {
+		if (inFlight != 0)
+			throw new IllegalStateException(inFlight + " requests wait for their replies");
+		out.putInt(nextId++).put(SolverServer.OP_METRICS).put(new byte[SolverServer.REQUEST_SIZE - 5]);
+		flush();
+		ensure(SolverServer.RESPONSE_HEADER);
+		in.getInt();
+		int status = in.get();
+		int length = in.getShort();
+		ensure(length);
+		if (status != SolverServer.STATUS_METRICS)
+			throw new IOException("Unexpected response status " + status);
+		byte[] text = new byte[length];
+		in.get(text);
+		return new String(text, UTF8);
+	}
+
+	/**
+	 * Sends the queued requests.
+	 */
+	public void flush() throws IOException {
+		out.flip();
+		while (out.hasRemaining())
+			channel.write(out);
+		out.clear();
+	}
+
+	/**
+	 * Closes the connection; the server drops the replies still to come.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Read until n bytes are buffered.
+	private void ensure(int n) throws IOException {
+		if (in.remaining() < n) {
+			in.compact();
+			while (in.position() < n)
+				if (channel.read(in) < 0)
+					throw new EOFException("The server closed the connection");
+			in.flip();
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The number of the color of facelet i like Color, 15 if it is not a color or the string has the wrong length.
+	private static int color(CharSequence facelets, int i, boolean valid) {
+		int c = valid ? "URFDLB".indexOf(facelets.charAt(i)) : -1;
+		return c < 0 ? 15 : c;
+	}
+}
@@ -0,0 +1,465 @@
+package org.kociemba.twophase;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * A solver service for the tools on one machine: it uses the tables in {@link CoordCube}, which are loaded once, and
+ * answers pipelined solve requests of any number of {@link SolverClient}s over a TCP socket on the loopback interface.
+ * <p>
+ * One thread serves all connections with a {@link Selector}; the solves run on a fixed pool of workers, each with its
+ * own {@link Search} context and {@link FaceletParser}. Requests are answered as soon as they are solved, so the
+ * responses of a connection may come in another order than its requests. At most <code>capacity</code> solves are
+ * queued or running: when they are reached, and when a connection has {@link #MAX_IN_FLIGHT} unanswered requests, the
+ * server stops reading from the connections, which pushes back on the clients through TCP.
+ * <p>
+ * All numbers are big endian. A request has {@link #REQUEST_SIZE} bytes: the int id of the request, the byte
+ * {@link #OP_SOLVE} or {@link #OP_METRICS}, the byte maxDepth (1 to 30), the int timeout in milliseconds, counted from
+ * the arrival of the request, and the 54 facelets of the cube, see {@link Facelet}, packed two to a byte with the first
+ * one in the high nibble and the colors numbered like {@link Color}. Metrics requests ignore all but the id and the op.
+ * <p>
+ * A response consists of the int id of its request, the byte status, the short length of the payload and the payload.
+ * The status of a solve is the code of its {@link Solution.Status}; the payload holds the byte phase 1 length, the
+ * long number of nodes, the long solve time in nanoseconds and one byte per move, see {@link Solution}. A metrics
+ * response has the status {@link #STATUS_METRICS} and lines of counters in UTF-8 as payload. An invalid request gets
+ * {@link #STATUS_BAD_REQUEST} and a solve that throws an exception gets {@link #STATUS_SOLVE_FAILED}, both without
+ * payload.
+ */
+public class SolverServer {
+
+	/** Size of a request in bytes. */
+	public static final int REQUEST_SIZE = 37;
+	/** Operation of a request that solves the cube. */
+	public static final byte OP_SOLVE = 0;
+	/** Operation of a request for the counters of the server. */
+	public static final byte OP_METRICS = 1;
+	/** Status of the response to {@link #OP_METRICS}. */
+	public static final byte STATUS_METRICS = 10;
+	/** Status of the response to an unknown operation or to parameters out of range. */
+	public static final byte STATUS_BAD_REQUEST = 11;
+	/** Status of the response to a solve that threw an exception, for example because the tables are missing. */
+	public static final byte STATUS_SOLVE_FAILED = 12;
+	/** Maximal number of requests of one connection that have been read but not answered yet. */
+	public static final int MAX_IN_FLIGHT = 256;
+
+	static final int RESPONSE_HEADER = 7; // id, status and payload length
+	static final int SOLVE_PAYLOAD = 17; // phase 1 length, nodes and nanos before the moves
+
+	private static final byte[] FACES = "URFDLB??????????".getBytes(Charset.forName("US-ASCII")); // nibble -> color
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final ExecutorService pool;
+	private final Thread loop;
+	private final int threads;
+	private final int capacity;
+	private volatile boolean stopped;
+
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+		@Override
+		protected Worker initialValue() {
+			return new Worker();
+		}
+	};
+
+	private final AtomicInteger pending = new AtomicInteger(); // solves queued or running
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLongArray statusCounts = new AtomicLongArray(Solution.Status.values().length);
+	private final AtomicLong failures = new AtomicLong(); // solves that threw an exception
+	private final AtomicLong queueNanos = new AtomicLong(); // time from reading a request to the start of its solve
+	private final AtomicLong solveNanos = new AtomicLong(); // time from the start of a solve to its response
+	private volatile int connections; // open connections, only changed by the selector thread
+	private volatile long accepted;
+
+	/**
+	 * Opens the server socket on the loopback interface and starts serving. The tables must have been loaded.
+	 *
+	 * @param port
+	 *          the TCP port, 0 for any free port, see {@link #getPort()}
+	 * @param threads
+	 *          the number of workers, which solve concurrently
+	 * @param capacity
+	 *          the maximal number of solves that are queued or running
+	 * @throws IOException
+	 *           if the socket cannot be opened
+	 */
+	public SolverServer(int port, int threads, int capacity) throws IOException {
+		if (threads < 1 || capacity < 1)
+			throw new IllegalArgumentException("threads and capacity must be at least 1: " + threads + ", " + capacity);
+		this.threads = threads;
+		this.capacity = capacity;
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.socket().bind(new InetSocketAddress(InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 }), port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		pool = Executors.newFixedThreadPool(threads);
+		loop = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				serve();
+			}
+		}, "SolverServer");
+		loop.start();
+	}
+
+	/**
+	 * @return the TCP port the server listens on
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * Waits until the server has stopped.
+	 */
+	public void join() throws InterruptedException {
+		loop.join();
+	}
+
+	/**
+	 * Closes all connections and cancels the running solves. The server cannot be used afterwards.
+	 */
+	public void shutdown() throws InterruptedException {
+		stopped = true;
+		selector.wakeup();
+		pool.shutdownNow();
+		loop.join();
+		pool.awaitTermination(1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @return the counters of the server as lines of name and value, the payload of a metrics response
+	 */
+	public String getMetrics() {
+		StringBuilder s = new StringBuilder();
+		s.append("threads ").append(threads).append('\n');
+		s.append("capacity ").append(capacity).append('\n');
+		s.append("pending ").append(pending.get()).append('\n');
+		s.append("connections ").append(connections).append('\n');
+		s.append("accepted ").append(accepted).append('\n');
+		s.append("requests ").append(requests.get()).append('\n');
+		for (Solution.Status status : Solution.Status.values())
+			s.append("status.").append(status.name().toLowerCase()).append(' ')
+					.append(statusCounts.get(status.ordinal())).append('\n');
+		s.append("failures ").append(failures.get()).append('\n');
+		s.append("queue_nanos ").append(queueNanos.get()).append('\n');
+		s.append("solve_nanos ").append(solveNanos.get()).append('\n');
+		s.append("search ").append(SearchStats.snapshot()).append('\n');
+		return s.toString();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The selector loop: accept, read and write, then parse the complete requests of every connection and set the
+	// operations of interest anew, because the workers change the queued solves and the responses to send.
+	private void serve() {
+		try {
+			while (!stopped) {
+				selector.select();
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection c = (Connection) key.attachment();
+					try {
+						if (key.isReadable() && c.channel.read(c.in) < 0)
+							c.eof = true;
+					} catch (IOException e) {
+						c.close();
+					}
+				}
+				for (SelectionKey key : selector.keys())
+					if (key.isValid() && key.attachment() != null) {
+						Connection c = (Connection) key.attachment();
+						try {
+							c.process();
+						} catch (IOException e) {
+							c.close();
+						}
+					}
+			}
+		} catch (IOException e) {
+			// the selector or the server socket failed, the server stops
+		} finally {
+			stopped = true;
+			for (SelectionKey key : selector.keys())
+				if (key.attachment() != null)
+					((Connection) key.attachment()).close();
+			try {
+				server.close();
+				selector.close();
+			} catch (IOException e) {
+				// nothing left to release
+			}
+			pool.shutdownNow();
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			new Connection(channel);
+			connections++;
+			accepted++;
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Build the response to a solve.
+	static ByteBuffer response(int id, Solution solution) {
+		int length = SOLVE_PAYLOAD + solution.length();
+		ByteBuffer b = ByteBuffer.allocate(RESPONSE_HEADER + length);
+		b.putInt(id).put((byte) solution.getStatus().getCode()).putShort((short) length);
+		b.put((byte) solution.getPhase1Length()).putLong(solution.getNodeCount()).putLong(solution.getNanos());
+		for (int i = 0; i < solution.length(); i++)
+			b.put((byte) solution.getMove(i));
+		b.flip();
+		return b;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Build a response with the given status and payload.
+	static ByteBuffer response(int id, byte status, byte[] payload) {
+		ByteBuffer b = ByteBuffer.allocate(RESPONSE_HEADER + payload.length);
+		b.putInt(id).put(status).putShort((short) payload.length).put(payload);
+		b.flip();
+		return b;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The search context and the buffers of a worker thread.
+	private static final class Worker {
+		final Search search = new Search();
+		final FaceletParser parser = new FaceletParser();
+		final byte[] facelets = new byte[54];
+
+		// Unpack the facelets of a request and check the cube, see Tools.verify.
+		int verify(byte[] packed) {
+			for (int i = 0; i < 27; i++) {
+				facelets[2 * i] = FACES[packed[i] >> 4 & 15];
+				facelets[2 * i + 1] = FACES[packed[i] & 15];
+			}
+			return parser.verify(facelets, 0);
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A solve request on its way through the worker pool.
+	private final class Solve implements Runnable {
+		final Connection connection;
+		final int id;
+		final int maxDepth;
+		final long received; // System.nanoTime() when the request was read
+		final long deadline;
+		final byte[] facelets = new byte[27];
+
+		Solve(Connection connection, int id, int maxDepth, long received, long deadline) {
+			this.connection = connection;
+			this.id = id;
+			this.maxDepth = maxDepth;
+			this.received = received;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public void run() {
+			long tStart = System.nanoTime();
+			queueNanos.addAndGet(tStart - received);
+			ByteBuffer response = null;
+			try {
+				Worker worker = workers.get();
+				Solution solution;
+				int s;
+				if (tStart - deadline >= 0)
+					solution = new Solution(Solution.Status.TIMEOUT, 0, 0);
+				else if ((s = worker.verify(facelets)) != 0)
+					solution = new Solution(Solution.Status.forCode(s), 0, 0);
+				else
+					solution = worker.search.solve(worker.parser.cc, maxDepth, deadline, null, null);
+				statusCounts.incrementAndGet(solution.getStatus().ordinal());
+				response = response(id, solution);
+			} finally {
+				// Answer and release the request even if the solve threw; the exception goes on to the pool.
+				if (response == null) {
+					failures.incrementAndGet();
+					response = response(id, STATUS_SOLVE_FAILED, new byte[0]);
+				}
+				boolean wakeUp = connection.send(response);
+				solveNanos.addAndGet(System.nanoTime() - tStart);
+				if (pending.getAndDecrement() == capacity) // the selector thread may have stopped reading
+					wakeUp = true;
+				if (wakeUp)
+					selector.wakeup();
+			}
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A client connection. Only the selector thread reads. A worker writes its response itself if no other response
+	// waits and no one else writes; otherwise it appends the response to out for the selector thread.
+	private final class Connection {
+		final SocketChannel channel;
+		final SelectionKey key;
+		final ByteBuffer in = ByteBuffer.allocate(64 * REQUEST_SIZE);
+		final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<ByteBuffer>();
+		final ByteBuffer[] batch = new ByteBuffer[64]; // responses for one gathering write
+		final ReentrantLock writing = new ReentrantLock(); // held while writing to the channel
+		volatile ByteBuffer partial; // a response of a worker that did not fit into the socket, sent before out
+		final AtomicInteger inFlight = new AtomicInteger(); // requests read but not answered completely
+		volatile boolean eof; // the client has shut down its output
+		volatile boolean closed;
+
+		Connection(SocketChannel channel) throws IOException {
+			this.channel = channel;
+			key = channel.register(selector, SelectionKey.OP_READ, this);
+		}
+
+		// Send a response from a worker. Returns true if the selector thread has to be woken up.
+		boolean send(ByteBuffer response) {
+			if (closed)
+				return false;
+			if (out.isEmpty() && partial == null && writing.tryLock()) {
+				try {
+					if (out.isEmpty() && partial == null) {
+						channel.write(response);
+						if (!response.hasRemaining())
+							return inFlight.getAndDecrement() == MAX_IN_FLIGHT || eof;
+						partial = response;
+						return true;
+					}
+				} catch (IOException e) {
+					partial = response; // the selector thread fails on it too and closes the connection
+					return true;
+				} finally {
+					writing.unlock();
+				}
+			}
+			out.add(response);
+			return true;
+		}
+
+		// Write the queued responses, parse the complete requests as far as the limits allow and set the interest.
+		void process() throws IOException {
+			if (partial != null || !out.isEmpty())
+				write();
+			in.flip();
+			while (in.remaining() >= REQUEST_SIZE && inFlight.get() < MAX_IN_FLIGHT) {
+				if (in.get(in.position() + 4) == OP_SOLVE && pending.get() >= capacity)
+					break;
+				request();
+			}
+			in.compact();
+			if (partial != null || !out.isEmpty())
+				write();
+
+			if (eof && inFlight.get() == 0 && in.position() < REQUEST_SIZE) {
+				close();
+				return;
+			}
+			int ops = 0;
+			if (!eof && in.hasRemaining() && inFlight.get() < MAX_IN_FLIGHT && pending.get() < capacity)
+				ops |= SelectionKey.OP_READ;
+			if (partial != null || !out.isEmpty())
+				ops |= SelectionKey.OP_WRITE;
+			key.interestOps(ops);
+		}
+
+		// Parse one request and queue its solve or answer it.
+		private void request() {
+			long received = System.nanoTime();
+			int id = in.getInt();
+			byte op = in.get();
+			int maxDepth = in.get();
+			int timeOut = in.getInt();
+			inFlight.incrementAndGet();
+			if (op == OP_SOLVE && maxDepth >= 1 && maxDepth <= 30 && timeOut > 0) {
+				Solve solve = new Solve(this, id, maxDepth, received, received + TimeUnit.MILLISECONDS.toNanos(timeOut));
+				in.get(solve.facelets);
+				requests.incrementAndGet();
+				pending.incrementAndGet();
+				try {
+					pool.execute(solve);
+				} catch (RejectedExecutionException e) { // shutdown
+					pending.decrementAndGet();
+					out.add(response(id, new Solution(Solution.Status.CANCELLED, 0, 0)));
+				}
+			} else {
+				in.position(in.position() + 27);
+				if (op == OP_METRICS)
+					out.add(response(id, STATUS_METRICS, getMetrics().getBytes(UTF8)));
+				else
+					out.add(response(id, STATUS_BAD_REQUEST, new byte[0]));
+			}
+		}
+
+		// Write as many queued responses as the socket takes at once.
+		private void write() throws IOException {
+			writing.lock();
+			try {
+				if (partial != null) {
+					channel.write(partial);
+					if (partial.hasRemaining())
+						return;
+					partial = null;
+					inFlight.decrementAndGet();
+				}
+				int n = 0;
+				for (ByteBuffer b : out) {
+					if (n == batch.length)
+						break;
+					batch[n++] = b;
+				}
+				channel.write(batch, 0, n);
+				ByteBuffer b;
+				while ((b = out.peek()) != null && !b.hasRemaining()) {
+					out.poll();
+					inFlight.decrementAndGet();
+				}
+			} finally {
+				writing.unlock();
+			}
+		}
+
+		void close() {
+			if (closed)
+				return;
+			closed = true;
+			connections--;
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// the connection is gone anyway
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.kociemba.twophase;
+
+import static org.kociemba.twophase.CoordCube.FRtoBR_Move;
+import static org.kociemba.twophase.CoordCube.N_FLIP;
+import static org.kociemba.twophase.CoordCube.N_MOVE;
+import static org.kociemba.twophase.CoordCube.N_TWIST;
+import static org.kociemba.twophase.CoordCube.flipMove;
+import static org.kociemba.twophase.CoordCube.getPruning3;
+import static org.kociemba.twophase.CoordCube.setPruning3;
+import static org.kociemba.twophase.CoordCube.twistMove;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.Executor;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Breadth first search that fills {@link CoordCube#FlipSlice_Twist_Prun}, the phase 1 distance of every combination of
+ * a flipslice class and a twist, stored modulo 3.
+ * <p>
+ * Works like {@link PruneTableBuilder}, except that an entry only holds the distance modulo 3: an entry with the current
+ * depth modulo 3 is expanded again in later forward passes, which only costs time. If the representative of a class is
+ * symmetric, the same cube has several entries in the class, one for every twist the symmetries conjugate it to. The
+ * forward pass marks all of them at once, the backward pass finds each of them on its own.
+ */
+class SymPruneTableBuilder {
+
+	static final int SIZE = Symmetry.N_FLIPSLICE_CLASS * N_TWIST;
+
+	// Switch to backward passes once fewer than BACKWARD unvisited entries are left per entry of the frontier. A backward
+	// pass usually finds a neighbour of the current depth after a few moves, a forward pass always tries all 18.
+	private static final int BACKWARD = 8;
+
+	private static final int CHUNK = 16 * N_TWIST; // entries per range of the parallel backward pass; 16 entries per int
+
+	/**
+	 * Generates the pruning table. The move tables twistMove, flipMove and FRtoBR_Move and the tables of
+	 * {@link Symmetry} must have been loaded.
+	 *
+	 * @param pool executes the backward passes on additional threads; may be null if <code>parallelism</code> is 1
+	 * @param parallelism the number of threads, including the calling thread, that process a backward pass
+	 * @return the pruning table with sixteen entries per int
+	 */
+	static IntBuffer build(Executor pool, int parallelism) {
+		final IntBuffer table = TableStore.newPruning3Table(SIZE);
+
+		setPruning3(table, 0, 0);
+		int done = 1;
+		int frontier = 1;
+		int depth = 0;
+		while (done != SIZE) {
+			if (SIZE - done < BACKWARD * frontier) {
+				final int d = depth;
+				if (parallelism <= 1)
+					frontier = backward(table, d, 0, SIZE);
+				else
+					frontier = PruneTableBuilder.forEachRange(SIZE, CHUNK, pool, parallelism, new PruneTableBuilder.Range() {
+						@Override
+						public int run(int from, int to) {
+							return backward(table, d, from, to);
+						}
+					});
+			} else
+				frontier = forward(table, depth);
+			if (frontier == 0)
+				throw new IllegalStateException("Phase 1 coset space not connected at depth " + depth);
+			done += frontier;
+			depth++;
+		}
+		return table;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Mark all unvisited neighbours of the entries with the given depth modulo 3. Returns the number of marked entries.
+	private static int forward(IntBuffer table, int depth) {
+		int depth3 = depth % 3;
+		int next3 = (depth + 1) % 3;
+		int found = 0;
+		for (int cls = 0; cls < Symmetry.N_FLIPSLICE_CLASS; cls++) {
+			int flip = Symmetry.flipSliceRep[cls] % N_FLIP;
+			int slice = Symmetry.flipSliceRep[cls] / N_FLIP;
+			int idx = N_TWIST * cls;
+			for (int twist = 0; twist < N_TWIST; twist++, idx++) {
+				if ((idx & 15) == 0 && twist + 16 <= N_TWIST && table.get(idx >>> 4) == -1) {
+					twist += 15; // all 16 entries of this int are unvisited
+					idx += 15;
+					continue;
+				}
+				if (getPruning3(table, idx) != depth3)
+					continue;
+				for (int mv = 0; mv < N_MOVE; mv++) {
+					int flipslice1 = N_FLIP * (FRtoBR_Move.get(N_MOVE * 24 * slice + mv) / 24)
+							+ flipMove.get(N_MOVE * flip + mv);
+					int cls1 = Symmetry.flipSliceClassIdx[flipslice1];
+					int twist1 = Symmetry.twistConj[Symmetry.N_SYM * twistMove.get(N_MOVE * twist + mv)
+							+ Symmetry.flipSliceSym[flipslice1]];
+					int idx1 = N_TWIST * cls1 + twist1;
+					if (getPruning3(table, idx1) != 3)
+						continue;
+					setPruning3(table, idx1, next3);
+					found++;
+					int selfSym = Symmetry.flipSliceSelfSym[cls1];
+					for (int s = 1; s < Symmetry.N_SYM; s++) {
+						if ((selfSym & (1 << s)) == 0)
+							continue;
+						int idx2 = N_TWIST * cls1 + Symmetry.twistConj[Symmetry.N_SYM * twist1 + s];
+						if (getPruning3(table, idx2) == 3) {
+							setPruning3(table, idx2, next3);
+							found++;
+						}
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Mark all unvisited entries in [from, to) that have a neighbour with the given depth modulo 3. Returns the number of
+	// marked entries. from must be a multiple of 16, so that no other range writes to the same ints.
+	private static int backward(IntBuffer table, int depth, int from, int to) {
+		int depth3 = depth % 3;
+		int next3 = (depth + 1) % 3;
+		int found = 0;
+		for (int idx = from; idx < to; idx++) {
+			int bits = table.get(idx >>> 4);
+			if ((idx & 15) == 0 && (bits & (bits >>> 1) & 0x55555555) == 0) {
+				idx += 15; // no entry of this int is unvisited
+				continue;
+			}
+			if (getPruning3(table, idx) != 3)
+				continue;
+			int cls = idx / N_TWIST;
+			int twist = idx % N_TWIST;
+			int flip = Symmetry.flipSliceRep[cls] % N_FLIP;
+			int slice = Symmetry.flipSliceRep[cls] / N_FLIP;
+			for (int mv = 0; mv < N_MOVE; mv++) {
+				int flipslice1 = N_FLIP * (FRtoBR_Move.get(N_MOVE * 24 * slice + mv) / 24)
+						+ flipMove.get(N_MOVE * flip + mv);
+				int twist1 = Symmetry.twistConj[Symmetry.N_SYM * twistMove.get(N_MOVE * twist + mv)
+						+ Symmetry.flipSliceSym[flipslice1]];
+				if (getPruning3(table, N_TWIST * Symmetry.flipSliceClassIdx[flipslice1] + twist1) == depth3) {
+					setPruning3(table, idx, next3);
+					found++;
+					break;
+				}
+			}
+		}
+		return found;
+	}
+}
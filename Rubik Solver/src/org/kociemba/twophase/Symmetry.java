@@ -0,0 +1,186 @@
+package org.kociemba.twophase;
+
+import static org.kociemba.twophase.Corner.*;
+import static org.kociemba.twophase.Edge.*;
+
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * The 48 symmetries of the cube and the reduction of the phase 1 flip and slice coordinates by the 16 symmetries which
+ * leave the UD-axis fixed.
+ * <p>
+ * Conjugating a cube by a symmetry S (S * cube * S^-1) maps every phase 1 move to a phase 1 move and keeps the phase 1
+ * goal, so all cubes of a symmetry class have the same phase 1 distance. The 1013760 combinations of flip and slice fall
+ * into 64430 classes. Every raw flipslice coordinate is stored as its class and the symmetry which transforms it into
+ * the representative of the class, which is the member with the smallest raw coordinate.
+ */
+class Symmetry {
+	static final int N_SYM = 16; // symmetries of the cube which leave the UD-axis fixed
+	static final int N_SYM_ALL = 48; // all symmetries of the cube
+	static final int N_FLIPSLICE = CoordCube.N_FLIP * CoordCube.N_SLICE1; // raw flipslice = N_FLIP * slice + flip
+	static final int N_FLIPSLICE_CLASS = 64430; // number of symmetry classes of flipslice
+
+	private static final char INVALID = 0xffff;
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The basic symmetries. Mirrored corners have orientations 3, 4 and 5, see CubieCube.cornerMultiply().
+
+	// 180 degree rotation around the axis through the F and B centers
+	private static final CubieCube ROT_F2 = new CubieCube(CubieCube.corners(DLF, DFR, DRB, DBL, UFL, URF, UBR, ULB),
+			new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 }, CubieCube.edges(DL, DF, DR, DB, UL, UF, UR, UB, FL, FR, BR, BL),
+			new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+
+	// 90 degree clockwise rotation around the axis through the U and D centers
+	private static final CubieCube ROT_U4 = new CubieCube(CubieCube.corners(UBR, URF, UFL, ULB, DRB, DFR, DLF, DBL),
+			new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 }, CubieCube.edges(UB, UR, UF, UL, DB, DR, DF, DL, BR, FR, FL, BL),
+			new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1 });
+
+	// reflection at the plane through the U, D, F and B centers
+	private static final CubieCube MIRR_LR2 = new CubieCube(CubieCube.corners(UFL, URF, UBR, ULB, DLF, DFR, DRB, DBL),
+			new byte[] { 3, 3, 3, 3, 3, 3, 3, 3 }, CubieCube.edges(UL, UF, UR, UB, DL, DF, DR, DB, FL, FR, BR, BL),
+			new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+
+	// 120 degree clockwise rotation around the long diagonal through the URF and DBL corners. Conjugation with it maps
+	// the U move onto F, F onto R and R onto U.
+	static final CubieCube ROT_URF3 = new CubieCube(CubieCube.corners(URF, DFR, DLF, UFL, UBR, DRB, DBL, ULB),
+			new byte[] { 1, 2, 1, 2, 2, 1, 2, 1 }, CubieCube.edges(UF, FR, DF, FL, UB, BR, DB, BL, UR, DR, DL, UL),
+			new byte[] { 1, 0, 1, 0, 1, 0, 1, 0, 1, 1, 1, 1 });
+
+	// symCube[16 * urf3 + 8 * f2 + 2 * u4 + lr2] = ROT_URF3^urf3 * ROT_F2^f2 * ROT_U4^u4 * MIRR_LR2^lr2. The first N_SYM
+	// symmetries leave the UD-axis fixed.
+	static final CubieCube[] symCube = new CubieCube[N_SYM_ALL];
+	static final int[] invIdx = new int[N_SYM_ALL]; // symCube[invIdx[s]] is the inverse of symCube[s]
+
+	/* moveConj[N_MOVE * s + mv] is the move symCube[s] * mv * symCube[s]^-1 */
+	static final int[] moveConj = new int[N_SYM_ALL * CoordCube.N_MOVE];
+
+	static {
+		CubieCube c = new CubieCube();
+		for (int urf3 = 0; urf3 < 3; urf3++) {
+			for (int f2 = 0; f2 < 2; f2++) {
+				for (int u4 = 0; u4 < 4; u4++) {
+					for (int lr2 = 0; lr2 < 2; lr2++) {
+						symCube[16 * urf3 + 8 * f2 + 2 * u4 + lr2] = new CubieCube(c.cp, c.co, c.ep, c.eo);
+						multiply(c, MIRR_LR2);
+					}
+					multiply(c, ROT_U4);
+				}
+				multiply(c, ROT_F2);
+			}
+			multiply(c, ROT_URF3);
+		}
+
+		CubieCube id = new CubieCube();
+		for (int i = 0; i < N_SYM_ALL; i++)
+			for (int j = 0; j < N_SYM_ALL; j++) {
+				c = new CubieCube(symCube[i].cp, symCube[i].co, symCube[i].ep, symCube[i].eo);
+				multiply(c, symCube[j]);
+				if (equal(c, id)) {
+					invIdx[i] = j;
+					break;
+				}
+			}
+
+		CubieCube[] move = new CubieCube[CoordCube.N_MOVE];
+		for (int mv = 0; mv < CoordCube.N_MOVE; mv++) {
+			move[mv] = mv % 3 == 0 ? new CubieCube() : new CubieCube(move[mv - 1].cp, move[mv - 1].co, move[mv - 1].ep,
+					move[mv - 1].eo);
+			multiply(move[mv], CubieCube.moveCube[mv / 3]);
+		}
+		for (int s = 0; s < N_SYM_ALL; s++)
+			for (int mv = 0; mv < CoordCube.N_MOVE; mv++) {
+				c = new CubieCube(symCube[s].cp, symCube[s].co, symCube[s].ep, symCube[s].eo);
+				multiply(c, move[mv]);
+				multiply(c, symCube[invIdx[s]]);
+				int m = 0;
+				while (!equal(c, move[m]))
+					m++; // every symmetry maps a move onto a move
+				moveConj[CoordCube.N_MOVE * s + mv] = m;
+			}
+	}
+
+	/* twistConj[N_SYM * twist + s] is the twist of symCube[s] * twist * symCube[s]^-1 */
+	static short[] twistConj;
+
+	/* the class and the symmetry of every raw flipslice coordinate: its representative is S * flipslice * S^-1 */
+	static char[] flipSliceClassIdx; // < N_FLIPSLICE_CLASS, so it fits into a char
+	static byte[] flipSliceSym;
+	static int[] flipSliceRep; // the raw flipslice coordinate of the representative of every class
+	static char[] flipSliceSelfSym; // bit s is set if symCube[s] maps the representative of the class onto itself
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Multiply a with b, including the edges.
+	static void multiply(CubieCube a, CubieCube b) {
+		a.cornerMultiply(b);
+		a.edgeMultiply(b);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static boolean equal(CubieCube a, CubieCube b) {
+		return Arrays.equals(a.cp, b.cp) && Arrays.equals(a.co, b.co) && Arrays.equals(a.ep, b.ep)
+				&& Arrays.equals(a.eo, b.eo);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Generate the conjugation table of the twist. This only depends on CubieCube.
+	static void loadTwistConj() {
+		short[] table = new short[CoordCube.N_TWIST * N_SYM];
+		CubieCube cc = new CubieCube();
+		for (short t = 0; t < CoordCube.N_TWIST; t++) {
+			cc.setTwist(t);
+			for (int s = 0; s < N_SYM; s++) {
+				CubieCube ss = new CubieCube(symCube[s].cp, symCube[s].co, symCube[s].ep, symCube[s].eo);
+				ss.cornerMultiply(cc);
+				ss.cornerMultiply(symCube[invIdx[s]]);
+				table[N_SYM * t + s] = ss.getTwist();
+			}
+		}
+		twistConj = table;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Generate the symmetry classes of flipslice. This only depends on CubieCube.
+	static void loadFlipSliceClasses() {
+		char[] classIdx = new char[N_FLIPSLICE];
+		byte[] sym = new byte[N_FLIPSLICE];
+		int[] rep = new int[N_FLIPSLICE_CLASS];
+		char[] selfSym = new char[N_FLIPSLICE_CLASS];
+		Arrays.fill(classIdx, INVALID);
+
+		int classes = 0;
+		CubieCube cc = new CubieCube();
+		for (short slice = 0; slice < CoordCube.N_SLICE1; slice++) {
+			cc.setFRtoBR((short) (24 * slice));
+			for (short flip = 0; flip < CoordCube.N_FLIP; flip++) {
+				int idx = CoordCube.N_FLIP * slice + flip;
+				if (classIdx[idx] != INVALID)
+					continue;
+				cc.setFlip(flip);
+				classIdx[idx] = (char) classes;
+				rep[classes] = idx;
+				for (int s = 0; s < N_SYM; s++) {
+					CubieCube ss = new CubieCube(symCube[invIdx[s]].cp, symCube[invIdx[s]].co, symCube[invIdx[s]].ep,
+							symCube[invIdx[s]].eo);
+					ss.edgeMultiply(cc);
+					ss.edgeMultiply(symCube[s]); // S^-1 * cc * S, so that S * member * S^-1 is the representative
+					int idxNew = CoordCube.N_FLIP * (ss.getFRtoBR() / 24) + ss.getFlip();
+					if (classIdx[idxNew] == INVALID) {
+						classIdx[idxNew] = (char) classes;
+						sym[idxNew] = (byte) s;
+					}
+					if (idxNew == idx)
+						selfSym[classes] |= 1 << s;
+				}
+				classes++;
+			}
+		}
+		if (classes != N_FLIPSLICE_CLASS)
+			throw new IllegalStateException("Unexpected number of flipslice classes: " + classes);
+
+		flipSliceSym = sym;
+		flipSliceRep = rep;
+		flipSliceSelfSym = selfSym;
+		flipSliceClassIdx = classIdx;
+	}
+}
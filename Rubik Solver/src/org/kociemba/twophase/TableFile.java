@@ -0,0 +1,595 @@
+package org.kociemba.twophase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Versioned binary file for the move and pruning tables of {@link CoordCube}.
+ * <p>
+ * The file is written once after the tables have been generated and is memory mapped read-only on later starts. The
+ * header is big endian, the table data little endian, the native byte order of Android devices and desktop PCs:
+ *
+ * <pre>
+ * int   magic "KTPT"
+ * int   format version
+ * int   number of tables
+ * int[] element size in bytes (1, 2 or 4), rows and columns of every table (rows are stored one after another)
+ * long  CRC32 of the table data
+ * table data, each table padded to a multiple of 8 bytes
+ * </pre>
+ *
+ * A file with a different version or table shape than this build expects is considered stale, a file with a wrong
+ * checksum is considered corrupt. In both cases {@link #read(File, boolean)} refuses it and the tables have to be
+ * generated. The phase 2 pruning tables of {@link PruneTableLoader.Phase2Encoding#MOD3} are stored as ints, so a file
+ * of the other encoding has a different table shape and is stale as well. The tables are not copied out of the file
+ * but used directly from the read-only mapping, so they take no space on the Java heap, and the system can drop their
+ * pages under memory pressure and read them again from the file.
+ * <p>
+ * A compressed table file has the magic "KTPZ" and the same header, followed by the table data as one zlib stream; the
+ * checksum is that of the uncompressed data. It is built on the desktop and shipped as an asset of the app.
+ * {@link #read(ReadableByteChannel, boolean)} streams it from any channel and inflates it chunk by chunk directly into
+ * the direct buffers of the tables, see {@link TableStore}, so no full size copy of the data is ever held in memory.
+ * <p>
+ * The pattern databases of {@link OptimalSearch} are stored in a second file of the same layout with the magic "KTPD".
+ * They consist of nibbles only, so every table has one row of bytes. Like the tables they are used directly from the
+ * read-only mapping.
+ */
+class TableFile {
+	static final int MAGIC = 0x4B545054; // "KTPT"
+	static final int COMPRESSED_MAGIC = 0x4B54505A; // "KTPZ"
+	static final int VERSION = 2; // increment whenever the content or the layout of any table changes
+
+	static final int TABLES = 12;
+
+	static final int PDB_MAGIC = 0x4B545044; // "KTPD"
+	static final int PDB_VERSION = 1; // increment whenever the content or the layout of any pattern database changes
+	static final int PDB_TABLES = 3;
+
+	private static final int CHUNK = 64 * 1024;
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Shapes of the tables in the order of PruneTableLoader.loadNext(): element size, rows, columns.
+	static final int[][] SHAPES = {
+			{ 2, CoordCube.N_TWIST, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_FLIP, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_FRtoBR, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_URFtoDLF, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_URtoDF, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_URtoUL, CoordCube.N_MOVE },
+			{ 2, CoordCube.N_UBtoDF, CoordCube.N_MOVE },
+			{ 2, 336, 336 },
+			{ 1, 1, CoordCube.N_SLICE2 * CoordCube.N_URFtoDLF * CoordCube.N_PARITY / 2 },
+			{ 1, 1, CoordCube.N_SLICE2 * CoordCube.N_URtoDF * CoordCube.N_PARITY / 2 },
+			{ 1, 1, CoordCube.N_SLICE1 * CoordCube.N_TWIST / 2 + 1 },
+			{ 1, 1, CoordCube.N_SLICE1 * CoordCube.N_FLIP / 2 } };
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The same with the phase 2 pruning tables modulo 3, sixteen entries per int.
+	static final int[][] MOD3_SHAPES = {
+			SHAPES[0], SHAPES[1], SHAPES[2], SHAPES[3], SHAPES[4], SHAPES[5], SHAPES[6], SHAPES[7],
+			{ 4, 1, (CoordCube.N_SLICE2 * CoordCube.N_URFtoDLF * CoordCube.N_PARITY + 15) / 16 },
+			{ 4, 1, (CoordCube.N_SLICE2 * CoordCube.N_URtoDF * CoordCube.N_PARITY + 15) / 16 },
+			SHAPES[10], SHAPES[11] };
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The tables of CoordCube in the order of SHAPES or MOD3_SHAPES.
+	private static Object[] currentTables(boolean mod3) {
+		return new Object[] { CoordCube.twistMove, CoordCube.flipMove, CoordCube.FRtoBR_Move, CoordCube.URFtoDLF_Move,
+				CoordCube.URtoDF_Move, CoordCube.URtoUL_Move, CoordCube.UBtoDF_Move, CoordCube.MergeURtoULandUBtoDF,
+				mod3 ? CoordCube.Slice_URFtoDLF_Parity_Prun3 : CoordCube.Slice_URFtoDLF_Parity_Prun,
+				mod3 ? CoordCube.Slice_URtoDF_Parity_Prun3 : CoordCube.Slice_URtoDF_Parity_Prun, CoordCube.Slice_Twist_Prun,
+				CoordCube.Slice_Flip_Prun };
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Shapes of the pattern databases in the order Corner_Prun, FRtoBR_Flip_Prun, URtoUL_UBtoDF_Prun.
+	static final int[][] PDB_SHAPES = {
+			{ 1, 1, (CoordCube.N_CORNER_PRUN + 1) / 2 },
+			{ 1, 1, (CoordCube.N_FRtoBR_FLIP_PRUN + 1) / 2 },
+			{ 1, 1, (CoordCube.N_URtoUL_UBtoDF_PRUN + 1) / 2 } };
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static int headerSize() {
+		return headerSize(TABLES);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static int headerSize(int tables) {
+		return 4 * (3 + 3 * tables) + 8;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static int dataSize(int[] shape) {
+		int size = shape[0] * shape[1] * shape[2];
+		return (size + 7) & ~7;
+	}
+
+	/**
+	 * Writes all tables of {@link CoordCube} to a file, the phase 2 pruning tables in the encoding they have been
+	 * generated with. The file is first written under a temporary name and then renamed, so a crash never leaves a
+	 * partially written table file behind.
+	 *
+	 * @throws IOException
+	 *           if the file cannot be written
+	 * @throws IllegalStateException
+	 *           if not all tables have been generated yet
+	 */
+	static void write(File file) throws IOException {
+		write(file, false);
+	}
+
+	/**
+	 * Writes all tables of {@link CoordCube} to a compressed table file, like {@link #write(File)}.
+	 *
+	 * @throws IOException
+	 *           if the file cannot be written
+	 * @throws IllegalStateException
+	 *           if not all tables have been generated yet
+	 */
+	static void writeCompressed(File file) throws IOException {
+		write(file, true);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static void write(File file, boolean compressed) throws IOException {
+		boolean mod3 = CoordCube.Slice_URFtoDLF_Parity_Prun3 != null;
+		int[][] shapes = mod3 ? MOD3_SHAPES : SHAPES;
+		Object[] tables = currentTables(mod3);
+		for (Object t : tables)
+			if (t == null)
+				throw new IllegalStateException("Tables must be generated before they can be written");
+
+		File tmp = new File(file.getPath() + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+		try {
+			FileChannel channel = raf.getChannel();
+			channel.truncate(0);
+			channel.position(headerSize());
+
+			// the header is not compressed, so that a stale file is recognized before anything is inflated
+			Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+			DeflaterOutputStream deflated = null;
+			WritableByteChannel out = channel;
+			if (compressed) {
+				deflated = new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, CHUNK);
+				out = Channels.newChannel(deflated);
+			}
+
+			CRC32 crc = new CRC32();
+			ByteBuffer chunk = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+			for (int t = 0; t < TABLES; t++) {
+				int written = 0;
+				if (shapes[t][0] == 4) {
+					IntBuffer table = ((IntBuffer) tables[t]).duplicate();
+					table.clear();
+					while (table.hasRemaining()) {
+						flush(out, chunk, crc);
+						int len = Math.min(CHUNK / 4, table.remaining());
+						table.limit(table.position() + len);
+						chunk.asIntBuffer().put(table);
+						table.limit(table.capacity());
+						chunk.position(4 * len);
+						written += 4 * len;
+					}
+				} else if (shapes[t][0] == 2) {
+					ShortBuffer table = ((ShortBuffer) tables[t]).duplicate();
+					table.clear();
+					while (table.hasRemaining()) {
+						flush(out, chunk, crc);
+						int len = Math.min(CHUNK / 2, table.remaining());
+						table.limit(table.position() + len);
+						chunk.asShortBuffer().put(table);
+						table.limit(table.capacity());
+						chunk.position(2 * len);
+						written += 2 * len;
+					}
+				} else {
+					ByteBuffer table = ((ByteBuffer) tables[t]).duplicate();
+					table.clear();
+					while (table.hasRemaining()) {
+						flush(out, chunk, crc);
+						int len = Math.min(CHUNK, table.remaining());
+						table.limit(table.position() + len);
+						chunk.put(table);
+						table.limit(table.capacity());
+						written += len;
+					}
+				}
+				while (written++ < dataSize(shapes[t])) {
+					if (!chunk.hasRemaining())
+						flush(out, chunk, crc);
+					chunk.put((byte) 0);
+				}
+			}
+			flush(out, chunk, crc);
+			if (deflated != null)
+				deflated.finish(); // does not close the channel
+			deflater.end();
+
+			ByteBuffer header = ByteBuffer.allocate(headerSize());
+			header.putInt(compressed ? COMPRESSED_MAGIC : MAGIC).putInt(VERSION).putInt(TABLES);
+			for (int[] shape : shapes)
+				header.putInt(shape[0]).putInt(shape[1]).putInt(shape[2]);
+			header.putLong(crc.getValue());
+			header.flip();
+			channel.position(0);
+			while (header.hasRemaining())
+				channel.write(header);
+			channel.force(true);
+		} finally {
+			raf.close();
+		}
+		if (!tmp.renameTo(file)) {
+			file.delete();
+			if (!tmp.renameTo(file))
+				throw new IOException("Cannot rename " + tmp + " to " + file);
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static void flush(WritableByteChannel channel, ByteBuffer chunk, CRC32 crc) throws IOException {
+		chunk.flip();
+		crc.update(chunk.array(), 0, chunk.limit());
+		while (chunk.hasRemaining())
+			channel.write(chunk);
+		chunk.clear();
+	}
+
+	/**
+	 * Maps a table file read-only, checks version, table shapes and checksum and installs the tables in
+	 * {@link CoordCube}. Either all tables are installed or none.
+	 *
+	 * @param mod3 expect the phase 2 pruning tables of {@link PruneTableLoader.Phase2Encoding#MOD3}
+	 * @return true if the tables have been installed; false if the file does not exist, is stale or is corrupt
+	 */
+	static boolean read(File file, boolean mod3) {
+		int[][] shapes = mod3 ? MOD3_SHAPES : SHAPES;
+		if (!file.isFile())
+			return false;
+		MappedByteBuffer buf;
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} finally {
+				raf.close(); // the mapping stays valid after the channel is closed
+			}
+		} catch (IOException e) {
+			return false;
+		}
+
+		// +++++++++++++++++++++++++++ check header ++++++++++++++++++++++++++++++++++
+		int dataSize = 0;
+		for (int[] shape : shapes)
+			dataSize += dataSize(shape);
+		if (buf.capacity() != headerSize() + dataSize)
+			return false;
+		if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != TABLES)
+			return false;
+		for (int[] shape : shapes)
+			if (buf.getInt() != shape[0] || buf.getInt() != shape[1] || buf.getInt() != shape[2])
+				return false;
+		long expectedCrc = buf.getLong();
+
+		// +++++++++++++++++++++++++++ check data +++++++++++++++++++++++++++++++++++++
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[CHUNK];
+		ByteBuffer data = buf.slice();
+		while (data.hasRemaining()) {
+			int len = Math.min(CHUNK, data.remaining());
+			data.get(chunk, 0, len);
+			crc.update(chunk, 0, len);
+		}
+		if (crc.getValue() != expectedCrc)
+			return false;
+
+		// +++++++++++++++++++++++++++ install tables ++++++++++++++++++++++++++++++++++
+		Object[] tables = new Object[TABLES];
+		data.rewind();
+		for (int t = 0; t < TABLES; t++) {
+			int[] shape = shapes[t];
+			ByteBuffer section = data.slice();
+			section.limit(shape[0] * shape[1] * shape[2]);
+			tables[t] = view(section.slice().order(ByteOrder.LITTLE_ENDIAN), shape[0]);
+			data.position(data.position() + dataSize(shape));
+		}
+		install(tables, mod3);
+		return true;
+	}
+
+	/**
+	 * Reads a compressed table file from a channel, checks it like {@link #read(File, boolean)} and installs the tables
+	 * in {@link CoordCube}. The data is inflated in chunks of 64 KB straight into the tables. Either all tables
+	 * are installed or none.
+	 *
+	 * @param channel
+	 *          the channel to read from; it is read up to the end of the compressed data and not closed
+	 * @param mod3
+	 *          expect the phase 2 pruning tables of {@link PruneTableLoader.Phase2Encoding#MOD3}
+	 * @return true if the tables have been installed; false if the channel cannot be read or its data is stale or
+	 *         corrupt
+	 */
+	static boolean read(ReadableByteChannel channel, boolean mod3) {
+		int[][] shapes = mod3 ? MOD3_SHAPES : SHAPES;
+		Inflater inflater = new Inflater();
+		try {
+			// +++++++++++++++++++++++++++ check header ++++++++++++++++++++++++++++++++++
+			ByteBuffer header = ByteBuffer.allocate(headerSize());
+			while (header.hasRemaining())
+				if (channel.read(header) < 0)
+					return false;
+			header.flip();
+			if (header.getInt() != COMPRESSED_MAGIC || header.getInt() != VERSION || header.getInt() != TABLES)
+				return false;
+			for (int[] shape : shapes)
+				if (header.getInt() != shape[0] || header.getInt() != shape[1] || header.getInt() != shape[2])
+					return false;
+			long expectedCrc = header.getLong();
+
+			// +++++++++++++++++++++++ inflate into the tables +++++++++++++++++++++++++++++
+			// Every chunk but the last is filled completely. Chunks and padded tables are multiples of 8 bytes, so no
+			// element of a table is ever split between two chunks.
+			Object[] tables = new Object[TABLES];
+			for (int t = 0; t < TABLES; t++)
+				tables[t] = newTable(shapes[t]);
+			CRC32 crc = new CRC32();
+			ByteBuffer in = ByteBuffer.allocate(CHUNK);
+			byte[] out = new byte[CHUNK];
+			ByteBuffer chunk = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+			int t = 0, offset = 0; // the current table and the byte offset in its padded data
+			while (t < TABLES) {
+				int len = inflate(channel, inflater, in, out, CHUNK);
+				if (len <= 0)
+					return false; // truncated
+				crc.update(out, 0, len);
+				for (int pos = 0; pos < len; t++, offset = 0) {
+					if (t == TABLES)
+						return false; // too much data
+					int[] shape = shapes[t];
+					int n = Math.min(len - pos, dataSize(shape) - offset);
+					int copy = Math.min(n, shape[0] * shape[1] * shape[2] - offset);
+					if (copy > 0) {
+						chunk.limit(pos + copy).position(pos);
+						copy(chunk, tables[t], offset / shape[0], shape[0]);
+					}
+					pos += n;
+					offset += n;
+					if (offset < dataSize(shape))
+						break; // the table goes on in the next chunk
+				}
+			}
+			if (inflate(channel, inflater, in, out, 1) != 0 || crc.getValue() != expectedCrc)
+				return false;
+			install(tables, mod3);
+			return true;
+		} catch (IOException e) {
+			return false;
+		} catch (DataFormatException e) {
+			return false;
+		} finally {
+			inflater.end();
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Inflate up to len bytes into out, reading the channel through in as needed. Returns fewer bytes only at the end of
+	// the compressed data, -1 if the channel ends before it.
+	private static int inflate(ReadableByteChannel channel, Inflater inflater, ByteBuffer in, byte[] out, int len)
+			throws IOException, DataFormatException {
+		int n = 0;
+		while (n < len && !inflater.finished()) {
+			if (inflater.needsDictionary())
+				throw new DataFormatException("Unexpected preset dictionary");
+			if (inflater.needsInput()) {
+				in.clear();
+				if (channel.read(in) < 0)
+					return -1;
+				inflater.setInput(in.array(), 0, in.position());
+			}
+			n += inflater.inflate(out, n, len - n);
+		}
+		return n;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	private static Object newTable(int[] shape) {
+		return view(TableStore.newBytes(shape[0] * shape[1] * shape[2]), shape[0]);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The bytes of buf as a table with elements of the given size in the byte order of buf.
+	private static Object view(ByteBuffer buf, int size) {
+		if (size == 4)
+			return buf.asIntBuffer();
+		if (size == 2)
+			return buf.asShortBuffer();
+		return buf;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Copy the remaining bytes of src into table, starting at element index, as elements of the given size in the byte
+	// order of src.
+	private static void copy(ByteBuffer src, Object table, int index, int size) {
+		if (size == 4) {
+			IntBuffer dst = ((IntBuffer) table).duplicate();
+			dst.position(index);
+			dst.put(src.asIntBuffer());
+		} else if (size == 2) {
+			ShortBuffer dst = ((ShortBuffer) table).duplicate();
+			dst.position(index);
+			dst.put(src.asShortBuffer());
+		} else {
+			ByteBuffer dst = ((ByteBuffer) table).duplicate();
+			dst.position(index);
+			dst.put(src);
+		}
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Install the tables in the order of SHAPES or MOD3_SHAPES in CoordCube.
+	private static void install(Object[] tables, boolean mod3) {
+		CoordCube.twistMove = (ShortBuffer) tables[0];
+		CoordCube.flipMove = (ShortBuffer) tables[1];
+		CoordCube.FRtoBR_Move = (ShortBuffer) tables[2];
+		CoordCube.URFtoDLF_Move = (ShortBuffer) tables[3];
+		CoordCube.URtoDF_Move = (ShortBuffer) tables[4];
+		CoordCube.URtoUL_Move = (ShortBuffer) tables[5];
+		CoordCube.UBtoDF_Move = (ShortBuffer) tables[6];
+		CoordCube.MergeURtoULandUBtoDF = (ShortBuffer) tables[7];
+		CoordCube.Slice_URFtoDLF_Parity_Prun = mod3 ? null : (ByteBuffer) tables[8];
+		CoordCube.Slice_URtoDF_Parity_Prun = mod3 ? null : (ByteBuffer) tables[9];
+		CoordCube.Slice_URFtoDLF_Parity_Prun3 = mod3 ? (IntBuffer) tables[8] : null;
+		CoordCube.Slice_URtoDF_Parity_Prun3 = mod3 ? (IntBuffer) tables[9] : null;
+		CoordCube.Slice_Twist_Prun = (ByteBuffer) tables[10];
+		CoordCube.Slice_Flip_Prun = (ByteBuffer) tables[11];
+		// the fill depths last, see CoordCube
+		CoordCube.Slice_URFtoDLF_Parity_Fill = mod3 ? -1 : CoordCube.FILLED;
+		CoordCube.Slice_URtoDF_Parity_Fill = mod3 ? -1 : CoordCube.FILLED;
+		CoordCube.Slice_Twist_Fill = CoordCube.FILLED;
+		CoordCube.Slice_Flip_Fill = CoordCube.FILLED;
+	}
+
+	/**
+	 * Writes the pattern databases of {@link CoordCube} to a file, like {@link #write(File)}.
+	 *
+	 * @throws IOException
+	 *           if the file cannot be written
+	 * @throws IllegalStateException
+	 *           if the pattern databases have not been generated yet
+	 */
+	static void writePatternDatabases(File file) throws IOException {
+		ByteBuffer[] tables = { CoordCube.Corner_Prun, CoordCube.FRtoBR_Flip_Prun, CoordCube.URtoUL_UBtoDF_Prun };
+		for (ByteBuffer t : tables)
+			if (t == null)
+				throw new IllegalStateException("Pattern databases must be generated before they can be written");
+
+		File tmp = new File(file.getPath() + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+		try {
+			FileChannel channel = raf.getChannel();
+			channel.truncate(0);
+			channel.position(headerSize(PDB_TABLES));
+
+			CRC32 crc = new CRC32();
+			ByteBuffer chunk = ByteBuffer.allocate(CHUNK);
+			for (int t = 0; t < PDB_TABLES; t++) {
+				ByteBuffer table = tables[t].duplicate();
+				table.clear();
+				int written = 0;
+				while (table.hasRemaining()) {
+					flush(channel, chunk, crc);
+					int len = Math.min(CHUNK, table.remaining());
+					table.limit(table.position() + len);
+					chunk.put(table);
+					table.limit(table.capacity());
+					written += len;
+				}
+				while (written++ < dataSize(PDB_SHAPES[t])) {
+					if (!chunk.hasRemaining())
+						flush(channel, chunk, crc);
+					chunk.put((byte) 0);
+				}
+			}
+			flush(channel, chunk, crc);
+
+			ByteBuffer header = ByteBuffer.allocate(headerSize(PDB_TABLES));
+			header.putInt(PDB_MAGIC).putInt(PDB_VERSION).putInt(PDB_TABLES);
+			for (int[] shape : PDB_SHAPES)
+				header.putInt(shape[0]).putInt(shape[1]).putInt(shape[2]);
+			header.putLong(crc.getValue());
+			header.flip();
+			channel.position(0);
+			while (header.hasRemaining())
+				channel.write(header);
+			channel.force(true);
+		} finally {
+			raf.close();
+		}
+		if (!tmp.renameTo(file)) {
+			file.delete();
+			if (!tmp.renameTo(file))
+				throw new IOException("Cannot rename " + tmp + " to " + file);
+		}
+	}
+
+	/**
+	 * Maps a pattern database file read-only, checks it like {@link #read(File, boolean)} and installs the pattern databases in
+	 * {@link CoordCube} as slices of the mapping. Either all pattern databases are installed or none.
+	 *
+	 * @return true if the pattern databases have been installed; false if the file does not exist, is stale or is
+	 *         corrupt
+	 */
+	static boolean readPatternDatabases(File file) {
+		if (!file.isFile())
+			return false;
+		MappedByteBuffer buf;
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+
+		// +++++++++++++++++++++++++++ check header ++++++++++++++++++++++++++++++++++
+		int dataSize = 0;
+		for (int[] shape : PDB_SHAPES)
+			dataSize += dataSize(shape);
+		if (buf.capacity() != headerSize(PDB_TABLES) + dataSize)
+			return false;
+		if (buf.getInt() != PDB_MAGIC || buf.getInt() != PDB_VERSION || buf.getInt() != PDB_TABLES)
+			return false;
+		for (int[] shape : PDB_SHAPES)
+			if (buf.getInt() != shape[0] || buf.getInt() != shape[1] || buf.getInt() != shape[2])
+				return false;
+		long expectedCrc = buf.getLong();
+
+		// +++++++++++++++++++++++++++ check data +++++++++++++++++++++++++++++++++++++
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[CHUNK];
+		ByteBuffer data = buf.slice();
+		while (data.hasRemaining()) {
+			int len = Math.min(CHUNK, data.remaining());
+			data.get(chunk, 0, len);
+			crc.update(chunk, 0, len);
+		}
+		if (crc.getValue() != expectedCrc)
+			return false;
+
+		// +++++++++++++++++++++++++++ install tables ++++++++++++++++++++++++++++++++++
+		ByteBuffer[] tables = new ByteBuffer[PDB_TABLES];
+		data.rewind();
+		for (int t = 0; t < PDB_TABLES; t++) {
+			ByteBuffer section = data.slice();
+			section.limit(PDB_SHAPES[t][2]);
+			tables[t] = section.slice();
+			data.position(data.position() + dataSize(PDB_SHAPES[t]));
+		}
+
+		CoordCube.Corner_Prun = tables[0];
+		CoordCube.FRtoBR_Flip_Prun = tables[1];
+		CoordCube.URtoUL_UBtoDF_Prun = tables[2];
+		return true;
+	}
+}
@@ -0,0 +1,89 @@
+package org.kociemba.twophase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+//++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+/**
+ * Allocates the move and pruning tables of {@link CoordCube} outside of the Java heap.
+ * <p>
+ * The tables take several megabytes, the symmetry reduced phase 1 pruning table alone 35 MB. As direct buffers they do
+ * not count against the heap limit of the app and the garbage collector never has to scan or move them. The buffers
+ * are in native byte order, so reading an element compiles to a plain load just like an array access and the search is
+ * not slower. Tables read from a table file are not allocated here at all; they are views of the read-only mapping of
+ * the file, see {@link TableFile}.
+ */
+final class TableStore {
+
+	private static final int CHUNK = 64 * 1024;
+
+	private TableStore() {
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A move table for a coordinate with the given number of values, N_MOVE entries per value.
+	static ShortBuffer newMoveTable(int values) {
+		return newShorts(values * CoordCube.N_MOVE);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	static ShortBuffer newShorts(int size) {
+		return newBytes(2 * size).asShortBuffer();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A pruning table with two entries per byte, see CoordCube.getPruning(ByteBuffer, int). All entries are empty.
+	static ByteBuffer newPruningTable(int entries) {
+		return fill(newBytes((entries + 1) / 2), (byte) -1);
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A pruning table with sixteen entries per int, see CoordCube.getPruning3(IntBuffer, int). All entries are empty.
+	static IntBuffer newPruning3Table(int entries) {
+		return fill(newBytes(4 * ((entries + 15) / 16)), (byte) -1).asIntBuffer();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// A bit set of the given number of entries, entry i is bit i % 64 of word i / 64. All bits are clear.
+	static LongBuffer newBitSet(int entries) {
+		return newBytes(8 * ((entries + 63) / 64)).asLongBuffer();
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	static ByteBuffer newBytes(int size) {
+		return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// Set every byte of buf to value with bulk puts; a direct buffer has no fast fill of its own.
+	private static ByteBuffer fill(ByteBuffer buf, byte value) {
+		byte[] chunk = new byte[Math.min(CHUNK, buf.capacity())];
+		Arrays.fill(chunk, value);
+		while (buf.hasRemaining())
+			buf.put(chunk, 0, Math.min(chunk.length, buf.remaining()));
+		buf.clear();
+		return buf;
+	}
+
+	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+	// The size in bytes of all tables currently installed in CoordCube.
+	static long installedBytes() {
+		long bytes = 0;
+		for (ShortBuffer t : new ShortBuffer[] { CoordCube.twistMove, CoordCube.flipMove, CoordCube.FRtoBR_Move,
+				CoordCube.URFtoDLF_Move, CoordCube.URtoDF_Move, CoordCube.URtoUL_Move, CoordCube.UBtoDF_Move,
+				CoordCube.MergeURtoULandUBtoDF })
+			bytes += t == null ? 0 : 2L * t.capacity();
+		for (ByteBuffer t : new ByteBuffer[] { CoordCube.Slice_URFtoDLF_Parity_Prun, CoordCube.Slice_URtoDF_Parity_Prun,
+				CoordCube.Slice_Twist_Prun, CoordCube.Slice_Flip_Prun, CoordCube.Corner_Prun,
+				CoordCube.FRtoBR_Flip_Prun, CoordCube.URtoUL_UBtoDF_Prun })
+			bytes += t == null ? 0 : t.capacity();
+		for (IntBuffer t : new IntBuffer[] { CoordCube.Slice_URFtoDLF_Parity_Prun3, CoordCube.Slice_URtoDF_Parity_Prun3,
+				CoordCube.FlipSlice_Twist_Prun })
+			bytes += t == null ? 0 : 4L * t.capacity();
+		return bytes;
+	}
+}
@@ -4,6 +4,13 @@ import java.util.Random;
 
 public class Tools {
 
+	private static final ThreadLocal<FaceletParser> parsers = new ThreadLocal<FaceletParser>() {
+		@Override
+		protected FaceletParser initialValue() {
+			return new FaceletParser();
+		}
+	};
+
 	// ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
 	// Check if the cube string s represents a solvable cube.
 	// 0: Cube is solvable
@@ -15,7 +22,8 @@ public class Tools {
 	// -6: Parity error: Two corners or two edges have to be exchanged
 	// 
 	/**
-	 * Check if the cube definition string s represents a solvable cube.
+	 * Check if the cube definition string s represents a solvable cube. Allocates nothing after the first call on a
+	 * thread; see {@link FaceletParser} to check many cubes given as bytes.
 	 * 
 	 * @param s is the cube definition string , see {@link Facelet}
 	 * @return 0: Cube is solvable<br>
@@ -26,32 +34,25 @@ public class Tools {
 	 *         -5: Twist error: One corner has to be twisted<br>
 	 *         -6: Parity error: Two corners or two edges have to be exchanged
 	 */
-	public static int verify(String s) {
-		int[] count = new int[6];
-		try {
-			for (int i = 0; i < 54; i++)
-				count[Color.valueOf(s.substring(i, i + 1)).ordinal()]++;
-		} catch (Exception e) {
-			return -1;
-		}
-
-		for (int i = 0; i < 6; i++)
-			if (count[i] != 9)
-				return -1;
-
-		FaceCube fc = new FaceCube(s);
-		CubieCube cc = fc.toCubieCube();
-
-		return cc.verify();
+	public static int verify(CharSequence s) {
+		return parsers.get().verify(s);
 	}
 
 	/**
-	 * Generates a random cube.
+	 * Generates a random cube. {@link CubeCorpus} generates large seeded corpora much faster.
 	 * @return A random cube in the string representation. Each cube of the cube space has the same probability.
 	 */
 	public static String randomCube() {
+		return randomCube(new Random());
+	}
+
+	/**
+	 * Generates a random cube from the given random number generator, so that a seeded generator always produces the
+	 * same sequence of cubes.
+	 * @return A random cube in the string representation. Each cube of the cube space has the same probability.
+	 */
+	public static String randomCube(Random gen) {
 		CubieCube cc = new CubieCube();
-		Random gen = new Random();
 		cc.setFlip((short) gen.nextInt(CoordCube.N_FLIP));
 		cc.setTwist((short) gen.nextInt(CoordCube.N_TWIST));
 		do {